@@ -0,0 +1,99 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение {@code bookCount} книг одного пользователя: по одной через {@link BookService#createBook}
+ * против одного вызова {@link BookService#createBooks}, который на JPA уходит пакетными вставками JDBC.
+ * Для {@code backend=jpa} нужна отдельная база, см. {@link JpaBackend}.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="BookCreateBenchmark -p jdbcUrl=jdbc:postgresql://host:5432/db"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookCreateBenchmark {
+
+    @Param({ServiceBackend.JPA, ServiceBackend.STORAGE})
+    public String backend;
+
+    @Param({"jdbc:postgresql://localhost:5432/postgres"})
+    public String jdbcUrl;
+
+    @Param({"postgres"})
+    public String username;
+
+    @Param({"postgres"})
+    public String password;
+
+    @Param({"1", "10", "100"})
+    public int bookCount;
+
+    private ServiceBackend services;
+    private Long userId;
+    private List<BookDto> books;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        services = ServiceBackend.open(backend, jdbcUrl, username, password);
+        UserDto user = new UserDto();
+        user.setFullName("Book owner");
+        user.setTitle(services.uniqueTitle());
+        user.setAge(30);
+        userId = services.userService().createUser(user).getId();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareBooks() {
+        books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            BookDto book = new BookDto();
+            book.setUserId(userId);
+            book.setTitle("Book " + i);
+            book.setAuthor("Author " + i);
+            book.setPageCount(100 + i);
+            books.add(book);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        services.close();
+    }
+
+    @Benchmark
+    public List<BookDto> createBookOneByOne() {
+        List<BookDto> created = new ArrayList<>(books.size());
+        for (BookDto book : books) {
+            created.add(services.bookService().createBook(book));
+        }
+        return created;
+    }
+
+    @Benchmark
+    public List<BookDto> createBooks() {
+        return services.bookService().createBooks(books);
+    }
+}
@@ -0,0 +1,70 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.AppApplication;
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.loadtest.TestConfigurationExcludeFilter;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сервисы и фасад из контекста приложения без веб-сервера поверх PostgreSQL: JPA, пакетные вставки
+ * и транзакции те же, что в рабочем профиле. Нужна отдельная база; созданные пользователи
+ * (и каскадом их книги) удаляются в {@link #close()}.
+ */
+final class JpaBackend implements ServiceBackend {
+    private final ConfigurableApplicationContext application;
+    private final UserService userService;
+    private final BookService bookService;
+    private final UserDataFacade facade;
+    private final String titlePrefix = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    private final AtomicLong titles = new AtomicLong();
+
+    JpaBackend(String jdbcUrl, String username, String password) {
+        this.application = new SpringApplicationBuilder(AppApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(context -> context.getBeanFactory()
+                        .registerSingleton("testConfigurationExcludeFilter", new TestConfigurationExcludeFilter()))
+                .run("--spring.datasource.url=" + jdbcUrl,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.show-sql=false");
+        this.userService = application.getBean(UserService.class);
+        this.bookService = application.getBean(BookService.class);
+        this.facade = application.getBean(UserDataFacade.class);
+    }
+
+    @Override
+    public UserService userService() {
+        return userService;
+    }
+
+    @Override
+    public BookService bookService() {
+        return bookService;
+    }
+
+    @Override
+    public UserDataFacade facade() {
+        return facade;
+    }
+
+    @Override
+    public String uniqueTitle() {
+        return titlePrefix + titles.incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+        int deleted = application.getBean(JdbcTemplate.class)
+                .update("delete from ulab_edu.person where title like ?", titlePrefix + "%");
+        System.out.printf("Deleted %d benchmark users%n", deleted);
+        application.close();
+    }
+}
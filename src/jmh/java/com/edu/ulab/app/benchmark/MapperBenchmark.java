@@ -0,0 +1,94 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конвертации MapStruct-мапперов {@link UserMapper} и {@link BookMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+    private final BookMapper bookMapper = Mappers.getMapper(BookMapper.class);
+
+    private UserRequest userRequest;
+    private UserDto userDto;
+    private Person person;
+    private BookRequest bookRequest;
+    private BookDto bookDto;
+    private Book book;
+
+    @Setup
+    public void setUp() {
+        userRequest = new UserRequest();
+        userRequest.setId(1L);
+        userRequest.setFullName("Test Test");
+        userRequest.setTitle("reader");
+        userRequest.setAge(30);
+        userDto = userMapper.userRequestToUserDto(userRequest);
+        person = userMapper.userDtoToPerson(userDto);
+
+        bookRequest = new BookRequest();
+        bookRequest.setId(2L);
+        bookRequest.setTitle("Title");
+        bookRequest.setAuthor("Author");
+        bookRequest.setPageCount(300);
+        bookDto = bookMapper.bookRequestToBookDto(bookRequest);
+        bookDto.setUserId(1L);
+        book = bookMapper.bookDtoToBook(bookDto);
+    }
+
+    @Benchmark
+    public UserDto userRequestToUserDto() {
+        return userMapper.userRequestToUserDto(userRequest);
+    }
+
+    @Benchmark
+    public Person userDtoToPerson() {
+        return userMapper.userDtoToPerson(userDto);
+    }
+
+    @Benchmark
+    public UserDto personToUserDto() {
+        return userMapper.personToUserDto(person);
+    }
+
+    @Benchmark
+    public BookDto bookRequestToBookDto() {
+        return bookMapper.bookRequestToBookDto(bookRequest);
+    }
+
+    @Benchmark
+    public Book bookDtoToBook() {
+        return bookMapper.bookDtoToBook(bookDto);
+    }
+
+    @Benchmark
+    public BookDto bookToBookDto() {
+        return bookMapper.bookToBookDto(book);
+    }
+}
@@ -0,0 +1,35 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+
+/**
+ * Сервисы и фасад, на которых запускаются замеры: {@link StorageBackend} или {@link JpaBackend}.
+ */
+interface ServiceBackend extends AutoCloseable {
+    String STORAGE = "storage";
+    String JPA = "jpa";
+
+    UserService userService();
+
+    BookService bookService();
+
+    UserDataFacade facade();
+
+    /**
+     * Должность, ещё не занятая в этом запуске: в PostgreSQL {@code person.title} уникален.
+     */
+    String uniqueTitle();
+
+    @Override
+    void close();
+
+    static ServiceBackend open(String backend, String jdbcUrl, String username, String password) {
+        return switch (backend) {
+            case STORAGE -> new StorageBackend();
+            case JPA -> new JpaBackend(jdbcUrl, username, password);
+            default -> throw new IllegalArgumentException("Unknown backend: " + backend);
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Методы {@link UserService} и {@link BookService} в несколько потоков: поверх хранилища в памяти
+ * и поверх JPA с PostgreSQL ({@code backend=jpa}, нужна отдельная база, см. {@link JpaBackend}).
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="ServiceBenchmark -p jdbcUrl=jdbc:postgresql://host:5432/db"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ServiceBenchmark {
+    private static final int USERS = 10_000;
+    private static final int BOOKS_PER_USER = 10;
+
+    @Param({ServiceBackend.STORAGE, ServiceBackend.JPA})
+    public String backend;
+
+    @Param({"jdbc:postgresql://localhost:5432/postgres"})
+    public String jdbcUrl;
+
+    @Param({"postgres"})
+    public String username;
+
+    @Param({"postgres"})
+    public String password;
+
+    private ServiceBackend services;
+    private long[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        services = ServiceBackend.open(backend, jdbcUrl, username, password);
+        userIds = new long[USERS];
+        List<BookDto> books = new ArrayList<>(USERS * BOOKS_PER_USER);
+        for (int i = 0; i < USERS; i++) {
+            UserDto user = services.userService().createUser(userDto(i));
+            userIds[i] = user.getId();
+            for (int j = 0; j < BOOKS_PER_USER; j++) {
+                books.add(bookDto(user.getId(), j));
+            }
+        }
+        services.bookService().createBooks(books);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        services.close();
+    }
+
+    @Benchmark
+    public UserDto createUser() {
+        return services.userService().createUser(userDto(USERS));
+    }
+
+    @Benchmark
+    public UserDto getUserById() {
+        return services.userService().getUserById(randomUserId());
+    }
+
+    @Benchmark
+    public BookDto createBook() {
+        return services.bookService().createBook(bookDto(randomUserId(), BOOKS_PER_USER));
+    }
+
+    @Benchmark
+    public List<Long> getBookByUserId() {
+        return services.bookService().getBookByUserId(randomUserId());
+    }
+
+    private long randomUserId() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    private UserDto userDto(int index) {
+        UserDto userDto = new UserDto();
+        userDto.setFullName("User " + index);
+        userDto.setTitle(services.uniqueTitle());
+        userDto.setAge(20 + index % 50);
+        return userDto;
+    }
+
+    private static BookDto bookDto(Long userId, int index) {
+        BookDto bookDto = new BookDto();
+        bookDto.setUserId(userId);
+        bookDto.setTitle("Book " + userId + "-" + index);
+        bookDto.setAuthor("Author " + index);
+        bookDto.setPageCount(100 + index);
+        return bookDto;
+    }
+}
@@ -0,0 +1,128 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.cache.UserBookCache;
+import com.edu.ulab.app.concurrent.StripedUserLock;
+import com.edu.ulab.app.counter.UserViewCounter;
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.service.impl.StorageBookServiceImpl;
+import com.edu.ulab.app.service.impl.StorageUserServiceImpl;
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.transaction.StorageTransactionManager;
+import com.edu.ulab.app.transaction.TransactionMetrics;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mapstruct.factory.Mappers;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Сборка сервисов и фасада поверх {@link Storage} без Spring-контекста, как это делает профиль
+ * {@value Storage#PROFILE}: замеры не зависят от базы данных и сети.
+ */
+final class StorageBackend implements ServiceBackend {
+    final Storage storage;
+    final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+    final BookMapper bookMapper = Mappers.getMapper(BookMapper.class);
+    final UserService userService;
+    final BookService bookService;
+    final UserDataFacade facade;
+    private final AtomicLong titles = new AtomicLong();
+
+    StorageBackend(Storage storage) {
+        this.storage = storage;
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        this.userService = new StorageUserServiceImpl(storage);
+        this.bookService = new StorageBookServiceImpl(storage, event -> {
+        });
+
+        StorageTransactionManager transactionManager =
+                new StorageTransactionManager(new TransactionMetrics(meterRegistry));
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        readTransaction.setReadOnly(true);
+
+        this.facade = new UserDataFacade(userService, bookService, userMapper, bookMapper,
+                new StripedUserLock(64, meterRegistry),
+                new UserBookCache(10_000, Duration.ofMinutes(5), Duration.ofSeconds(5), meterRegistry),
+                new UserViewCounter(userService, meterRegistry),
+                writeTransaction, readTransaction, meterRegistry);
+    }
+
+    StorageBackend() {
+        this(new Storage());
+    }
+
+    @Override
+    public UserService userService() {
+        return userService;
+    }
+
+    @Override
+    public BookService bookService() {
+        return bookService;
+    }
+
+    @Override
+    public UserDataFacade facade() {
+        return facade;
+    }
+
+    @Override
+    public String uniqueTitle() {
+        return "reader-" + titles.incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    static UserBookRequest userBookRequest(int index, int bookCount) {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setFullName("User " + index);
+        userRequest.setTitle("reader");
+        userRequest.setAge(20 + index % 50);
+
+        List<BookRequest> bookRequests = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            BookRequest bookRequest = new BookRequest();
+            bookRequest.setTitle("Book " + index + "-" + i);
+            bookRequest.setAuthor("Author " + i);
+            bookRequest.setPageCount(100 + i);
+            bookRequests.add(bookRequest);
+        }
+
+        UserBookRequest request = new UserBookRequest();
+        request.setUserRequest(userRequest);
+        request.setBookRequests(bookRequests);
+        return request;
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
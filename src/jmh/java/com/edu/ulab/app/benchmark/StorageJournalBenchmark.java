@@ -0,0 +1,70 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.storage.BookRecord;
+import com.edu.ulab.app.storage.FsyncPolicy;
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.storage.UserRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность записи в {@link Storage} с журналом при разных {@link FsyncPolicy}.
+ * Число потоков важно для GROUP: меняйте его через {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class StorageJournalBenchmark {
+    @Param({"ALWAYS", "GROUP", "NONE"})
+    public FsyncPolicy fsyncPolicy;
+
+    private Path directory;
+    private Storage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("storage-journal-benchmark");
+        storage = Storage.open(directory, fsyncPolicy, 64 << 20);
+    }
+
+    /**
+     * Снимок между итерациями, чтобы журнал не разрастался и не занимал диск.
+     */
+    @TearDown(Level.Iteration)
+    public void compact() throws IOException {
+        storage.snapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.close();
+        StorageBackend.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public BookRecord createUserWithBook() {
+        UserRecord user = storage.createUser("User", "reader", 30);
+        return storage.createBook(user.id(), "Title", "Author", 300);
+    }
+}
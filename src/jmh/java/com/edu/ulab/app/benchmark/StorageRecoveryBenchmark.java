@@ -0,0 +1,70 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.dataset.DatasetSpec;
+import com.edu.ulab.app.dataset.StorageDatasetLoader;
+import com.edu.ulab.app.storage.FsyncPolicy;
+import com.edu.ulab.app.storage.Storage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время открытия {@link Storage}: загрузка снимка или проигрывание журнала целиком.
+ * Данные из {@link DatasetSpec#of(int)}: по умолчанию 1M пользователей и около 15M книг
+ * с Zipf-распределением по пользователям; для быстрой проверки {@code -p users=10000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class StorageRecoveryBenchmark {
+    private static final int JOURNAL_FILE_SIZE = 256 << 20;
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"SNAPSHOT", "JOURNAL"})
+    public String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("storage-recovery-benchmark");
+        try (Storage storage = Storage.open(directory, FsyncPolicy.NONE, JOURNAL_FILE_SIZE)) {
+            StorageDatasetLoader.load(storage, DatasetSpec.of(users));
+            if ("SNAPSHOT".equals(source)) {
+                storage.snapshot();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        StorageBackend.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public int recover() throws IOException {
+        try (Storage storage = Storage.open(directory, FsyncPolicy.NONE, JOURNAL_FILE_SIZE)) {
+            return storage.bookCount();
+        }
+    }
+}
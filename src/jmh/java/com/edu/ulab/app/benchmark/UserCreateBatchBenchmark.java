@@ -0,0 +1,104 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.AppApplication;
+import com.edu.ulab.app.facade.UserCreateCoalescer;
+import com.edu.ulab.app.loadtest.TestConfigurationExcludeFilter;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пропускная способность и p99 {@code POST /user/create} под 32 потоками с групповым коммитом и без него.
+ * Приложение поднимается без веб-сервера на отдельной базе PostgreSQL; созданные пользователи удаляются в конце.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="UserCreateBatchBenchmark -p jdbcUrl=jdbc:postgresql://host:5432/db"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class UserCreateBatchBenchmark {
+
+    @Param({"jdbc:postgresql://localhost:5432/postgres"})
+    public String jdbcUrl;
+
+    @Param({"postgres"})
+    public String username;
+
+    @Param({"postgres"})
+    public String password;
+
+    @Param({"false", "true"})
+    public boolean batching;
+
+    @Param({"2ms"})
+    public String maxWait;
+
+    @Param({"32"})
+    public int maxSize;
+
+    @Param({"2"})
+    public int bookCount;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    private String titlePrefix;
+    private ConfigurableApplicationContext application;
+    private UserCreateCoalescer coalescer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        titlePrefix = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        application = new SpringApplicationBuilder(AppApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(context -> context.getBeanFactory()
+                        .registerSingleton("testConfigurationExcludeFilter", new TestConfigurationExcludeFilter()))
+                .run("--spring.datasource.url=" + jdbcUrl,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--user-create-batch.enabled=" + batching,
+                        "--user-create-batch.max-wait=" + maxWait,
+                        "--user-create-batch.max-size=" + maxSize);
+        coalescer = application.getBean(UserCreateCoalescer.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // книги удаляются каскадом
+        int deleted = application.getBean(JdbcTemplate.class)
+                .update("delete from ulab_edu.person where title like ?", titlePrefix + "%");
+        System.out.printf("Deleted %d benchmark users%n", deleted);
+        application.close();
+    }
+
+    @Benchmark
+    public UserBookResponse createUser() {
+        int index = sequence.incrementAndGet();
+        UserBookRequest request = StorageBackend.userBookRequest(index, bookCount);
+        request.getUserRequest().setTitle(titlePrefix + index);
+        return coalescer.createUserWithBooks(request);
+    }
+}
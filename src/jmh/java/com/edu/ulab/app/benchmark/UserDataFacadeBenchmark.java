@@ -0,0 +1,110 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конвейеры {@link UserDataFacade} (маппинг запросов, стримы по книгам, кэш, транзакции) поверх хранилища
+ * в памяти и поверх JPA с PostgreSQL ({@code backend=jpa}, нужна отдельная база, см. {@link JpaBackend}).
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="UserDataFacadeBenchmark -p jdbcUrl=jdbc:postgresql://host:5432/db"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDataFacadeBenchmark {
+    private static final int USERS = 10_000;
+
+    @Param({ServiceBackend.STORAGE, ServiceBackend.JPA})
+    public String backend;
+
+    @Param({"jdbc:postgresql://localhost:5432/postgres"})
+    public String jdbcUrl;
+
+    @Param({"postgres"})
+    public String username;
+
+    @Param({"postgres"})
+    public String password;
+
+    @Param({"1", "10", "100"})
+    public int booksPerUser;
+
+    private ServiceBackend services;
+    private UserBookRequest createRequest;
+    private UserBookRequest updateRequest;
+    private List<Long> userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        services = ServiceBackend.open(backend, jdbcUrl, username, password);
+        createRequest = StorageBackend.userBookRequest(0, booksPerUser);
+
+        List<UserBookRequest> requests = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            UserBookRequest request = StorageBackend.userBookRequest(i, booksPerUser);
+            request.getUserRequest().setTitle(services.uniqueTitle());
+            requests.add(request);
+        }
+        List<UserBookResponse> responses = services.facade().createUsersWithBooks(requests);
+        userIds = responses.stream()
+                .map(UserBookResponse::getUserId)
+                .toList();
+
+        UserBookResponse updated = responses.get(0);
+        updateRequest = StorageBackend.userBookRequest(0, booksPerUser);
+        updateRequest.getUserRequest().setId(updated.getUserId());
+        updateRequest.getUserRequest().setTitle(requests.get(0).getUserRequest().getTitle());
+        for (int i = 0; i < booksPerUser; i++) {
+            updateRequest.getBookRequests().get(i).setId(updated.getBooksIdList().get(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        services.close();
+    }
+
+    @Benchmark
+    public UserBookResponse createUserWithBooks() {
+        createRequest.getUserRequest().setTitle(services.uniqueTitle());
+        return services.facade().createUserWithBooks(createRequest);
+    }
+
+    @Benchmark
+    public UserBookResponse getUserWithBooks() {
+        return services.facade().getUserWithBooks(randomUserId());
+    }
+
+    @Benchmark
+    public UserBookResponse updateUserWithBooks() {
+        updateRequest.getBookRequests().get(0).setPageCount(ThreadLocalRandom.current().nextInt(1, 1000));
+        return services.facade().updateUserWithBooks(updateRequest);
+    }
+
+    private Long randomUserId() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+}
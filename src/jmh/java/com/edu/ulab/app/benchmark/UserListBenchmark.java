@@ -0,0 +1,121 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.dataset.DatasetSpec;
+import com.edu.ulab.app.dataset.PostgresDatasetLoader;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserFilter;
+import com.edu.ulab.app.repository.UserRepositoryImpl;
+import liquibase.integration.spring.SpringLiquibase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Страница {@code GET /user/list} на сгенерированном наборе в PostgreSQL: время страницы не должно зависеть
+ * от глубины {@code page}. Нужна отдельная база: схема накатывается Liquibase, строки с id от
+ * {@link DatasetSpec#DEFAULT_FIRST_ID} перезаписываются, если их число не совпадает с {@code users}.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="UserListBenchmark -p jdbcUrl=jdbc:postgresql://host:5432/db"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserListBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"jdbc:postgresql://localhost:5432/postgres"})
+    public String jdbcUrl;
+
+    @Param({"postgres"})
+    public String username;
+
+    @Param({"postgres"})
+    public String password;
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"NONE", "AGE", "TITLE"})
+    public String filter;
+
+    @Param({"1", "100", "700"})
+    public int page;
+
+    private SingleConnectionDataSource dataSource;
+    private UserRepositoryImpl userRepository;
+    private UserFilter userFilter;
+    private long afterId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataSource = new SingleConnectionDataSource(jdbcUrl, username, password, true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        migrate();
+        DatasetSpec spec = DatasetSpec.of(users);
+        Long loaded = jdbcTemplate.queryForObject(
+                "select count(*) from ulab_edu.person where id >= ?", Long.class, spec.firstId());
+        if (loaded == null || loaded != users) {
+            jdbcTemplate.update("delete from ulab_edu.book where id >= ?", spec.firstId());
+            jdbcTemplate.update("delete from ulab_edu.person where id >= ?", spec.firstId());
+            PostgresDatasetLoader.load(dataSource, spec);
+        }
+        // visibility map для index-only scan
+        jdbcTemplate.execute("vacuum analyze ulab_edu.person");
+
+        userRepository = new UserRepositoryImpl(jdbcTemplate);
+        userFilter = switch (filter) {
+            case "NONE" -> new UserFilter();
+            case "AGE" -> new UserFilter(30, 39, null);
+            case "TITLE" -> new UserFilter(null, null, "a");
+            default -> throw new IllegalArgumentException("Unknown filter: " + filter);
+        };
+        afterId = spec.firstId() - 1;
+        for (int i = 1; i < page; i++) {
+            List<UserDto> skipped = userRepository.findPage(userFilter, afterId, PAGE_SIZE);
+            if (skipped.size() < PAGE_SIZE) {
+                throw new IllegalStateException("Filter " + filter + " has less than " + page + " pages");
+            }
+            afterId = skipped.get(PAGE_SIZE - 1).getId();
+        }
+        jdbcTemplate.queryForList("explain (analyze, buffers) select id, full_name, title, age from ulab_edu.person"
+                        + " where id > " + afterId + " order by id limit " + (PAGE_SIZE + 1), String.class)
+                .forEach(System.out::println);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<UserDto> listPage() {
+        return userRepository.findPage(userFilter, afterId, PAGE_SIZE + 1);
+    }
+
+    private void migrate() throws Exception {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.afterPropertiesSet();
+    }
+}
@@ -0,0 +1,55 @@
+package com.edu.ulab.app.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного теста в виде {@code --ключ=значение}.
+ *
+ * @param url          адрес уже запущенного приложения (до {@code /app}); без него приложение поднимается
+ *                     в этом же процессе с профилем {@code storage}
+ * @param rate         целевая интенсивность, запросов в секунду; запросы отправляются по расписанию,
+ *                     не дожидаясь ответов на предыдущие (open loop)
+ * @param concurrency  максимум запросов в полёте
+ * @param mix          веса операций, например {@code get=80,create=10,update=8,delete=2}
+ */
+record LoadTestOptions(String url,
+                       int rate,
+                       Duration warmup,
+                       Duration duration,
+                       int concurrency,
+                       Map<UserOperation, Integer> mix,
+                       int users,
+                       int booksPerUser) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(
+                values.get("url"),
+                Integer.parseInt(values.getOrDefault("rate", "1000")),
+                Duration.parse(values.getOrDefault("warmup", "PT10S")),
+                Duration.parse(values.getOrDefault("duration", "PT30S")),
+                Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                parseMix(values.getOrDefault("mix", "get=80,create=10,update=8,delete=2")),
+                Integer.parseInt(values.getOrDefault("users", "1000")),
+                Integer.parseInt(values.getOrDefault("books-per-user", "5")));
+    }
+
+    private static Map<UserOperation, Integer> parseMix(String mix) {
+        Map<UserOperation, Integer> weights = new EnumMap<>(UserOperation.class);
+        for (String part : mix.split(",")) {
+            String[] weight = part.split("=");
+            weights.put(UserOperation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,45 @@
+package com.edu.ulab.app.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки одной операции за фазу теста.
+ * <p>
+ * Время ответа считается от запланированного момента отправки, а не от фактического:
+ * если генератор или сервер отстали, ожидание попадает в перцентили (поправка на coordinated omission).
+ * Время обслуживания считается от фактической отправки и показывает, сколько занял сам запрос.
+ */
+class OperationStats {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder responseTime = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder serviceTime = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder errors = new LongAdder();
+
+    void record(long intendedStartNanos, long sentNanos, long completedNanos, boolean success) {
+        responseTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS,
+                TimeUnit.NANOSECONDS.toMicros(completedNanos - intendedStartNanos)));
+        serviceTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS,
+                TimeUnit.NANOSECONDS.toMicros(completedNanos - sentNanos)));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    Histogram responseTime() {
+        return responseTime.getIntervalHistogram();
+    }
+
+    Histogram serviceTime() {
+        return serviceTime.getIntervalHistogram();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+}
@@ -0,0 +1,309 @@
+package com.edu.ulab.app.loadtest;
+
+import com.edu.ulab.app.AppApplication;
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.web.constant.WebConstant;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест {@code UserController}: create, update, get и delete в заданной пропорции
+ * с постоянной интенсивностью (open loop), отчёт по пропускной способности и перцентилям задержек.
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec@load-test -Dload.args="--rate=2000 --mix=get=90,create=10"
+ * </pre>
+ */
+public class UserLoadGenerator {
+    private static final String USER_PATH = WebConstant.VERSION_URL + "/user";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ExecutorService callbackExecutor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UserPool userPool = new UserPool();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Semaphore inFlight;
+    private final UserOperation[] operationByWeight;
+
+    UserLoadGenerator(LoadTestOptions options, String appUrl) {
+        this.options = options;
+        this.baseUrl = appUrl + USER_PATH;
+        this.callbackExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(callbackExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.inFlight = new Semaphore(options.concurrency());
+        this.operationByWeight = expandWeights(options.mix());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext application = null;
+        String appUrl = options.url();
+        if (appUrl == null) {
+            application = new SpringApplicationBuilder(AppApplication.class)
+                    .profiles(Storage.PROFILE)
+                    .initializers(context -> context.getBeanFactory()
+                            .registerSingleton("testConfigurationExcludeFilter", new TestConfigurationExcludeFilter()))
+                    // аргументы, а не properties(): те ниже по приоритету, чем application-storage.yaml
+                    .run("--server.port=0", "--storage.data-dir=");
+            appUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port") + "/app";
+        }
+        UserLoadGenerator generator = new UserLoadGenerator(options, appUrl);
+        try {
+            generator.run();
+        } finally {
+            generator.callbackExecutor.shutdownNow();
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("Target %s, %d req/s, concurrency %d, mix %s%n",
+                baseUrl, options.rate(), options.concurrency(), options.mix());
+        preload();
+        System.out.printf("Preloaded %d users, warming up for %s%n", userPool.size(), options.warmup());
+        runPhase(options.warmup());
+        System.out.printf("Measuring for %s%n", options.duration());
+        long start = System.nanoTime();
+        Map<UserOperation, OperationStats> stats = runPhase(options.duration());
+        report(stats, System.nanoTime() - start);
+    }
+
+    private void preload() throws InterruptedException {
+        List<CompletableFuture<Boolean>> requests = new ArrayList<>();
+        for (int i = 0; i < options.users(); i++) {
+            inFlight.acquire();
+            requests.add(create().whenComplete((success, error) -> inFlight.release()));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Отправляет запросы по расписанию {@code start + i * interval}. Если все слоты заняты, диспетчер ждёт,
+     * но время ответа всё равно считается от запланированного момента.
+     */
+    private Map<UserOperation, OperationStats> runPhase(Duration duration) throws InterruptedException {
+        Map<UserOperation, OperationStats> stats = new EnumMap<>(UserOperation.class);
+        for (UserOperation operation : UserOperation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            parkUntil(intendedStart);
+            inFlight.acquire();
+            UserOperation operation = nextOperation();
+            OperationStats operationStats = stats.get(operation);
+            long sent = System.nanoTime();
+            send(operation).whenComplete((success, error) -> {
+                operationStats.record(intendedStart, sent, System.nanoTime(), error == null && success);
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(options.concurrency());
+        inFlight.release(options.concurrency());
+        return stats;
+    }
+
+    private CompletableFuture<Boolean> send(UserOperation operation) {
+        return switch (operation) {
+            case CREATE -> create();
+            case UPDATE -> update();
+            case GET -> get();
+            case DELETE -> delete();
+        };
+    }
+
+    private CompletableFuture<Boolean> create() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/create"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header(WebConstant.RQID, "load" + sequence.incrementAndGet())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(toJson(userBookRequest(null, List.of()))))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        return false;
+                    }
+                    JsonNode body = readJson(response.body());
+                    List<Long> bookIds = new ArrayList<>();
+                    body.get("booksIdList").forEach(bookId -> bookIds.add(bookId.asLong()));
+                    userPool.add(new UserPool.CreatedUser(body.get("userId").asLong(), bookIds));
+                    return true;
+                });
+    }
+
+    private CompletableFuture<Boolean> update() {
+        UserPool.CreatedUser user = userPool.random();
+        if (user == null) {
+            return create();
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/update"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(toJson(userBookRequest(user.userId(), user.bookIds()))))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == 200);
+    }
+
+    private CompletableFuture<Boolean> get() {
+        UserPool.CreatedUser user = userPool.random();
+        if (user == null) {
+            return create();
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/get/" + user.userId()))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == 200);
+    }
+
+    private CompletableFuture<Boolean> delete() {
+        UserPool.CreatedUser user = userPool.takeRandom();
+        if (user == null) {
+            return create();
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/delete/" + user.userId()))
+                .timeout(REQUEST_TIMEOUT)
+                .DELETE()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == 200);
+    }
+
+    private UserBookRequest userBookRequest(Long userId, List<Long> bookIds) {
+        long id = sequence.incrementAndGet();
+        UserRequest userRequest = new UserRequest();
+        userRequest.setId(userId);
+        userRequest.setFullName("Load User " + id);
+        userRequest.setTitle("reader-" + id);
+        userRequest.setAge(18 + (int) (id % 60));
+
+        int bookCount = userId == null ? options.booksPerUser() : bookIds.size();
+        List<BookRequest> bookRequests = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            BookRequest bookRequest = new BookRequest();
+            bookRequest.setId(userId == null ? null : bookIds.get(i));
+            bookRequest.setTitle("Load Book " + id + "-" + i);
+            bookRequest.setAuthor("Author " + i);
+            bookRequest.setPageCount(ThreadLocalRandom.current().nextInt(50, 1000));
+            bookRequests.add(bookRequest);
+        }
+
+        UserBookRequest request = new UserBookRequest();
+        request.setUserRequest(userRequest);
+        request.setBookRequests(bookRequests);
+        return request;
+    }
+
+    private UserOperation nextOperation() {
+        return operationByWeight[ThreadLocalRandom.current().nextInt(operationByWeight.length)];
+    }
+
+    private void report(Map<UserOperation, OperationStats> stats, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        Histogram totalResponseTime = new Histogram(3);
+        long totalErrors = 0;
+        System.out.printf("%n%-8s %10s %8s %10s | %-36s | %-36s%n", "op", "count", "errors", "req/s",
+                "response time ms: p50 / p99 / p99.9 / max", "service time ms: p50 / p99 / p99.9 / max");
+        for (Map.Entry<UserOperation, OperationStats> entry : stats.entrySet()) {
+            Histogram responseTime = entry.getValue().responseTime();
+            Histogram serviceTime = entry.getValue().serviceTime();
+            totalResponseTime.add(responseTime);
+            totalErrors += entry.getValue().errors();
+            System.out.printf("%-8s %10d %8d %10.1f | %-36s | %-36s%n", entry.getKey(), responseTime.getTotalCount(),
+                    entry.getValue().errors(), responseTime.getTotalCount() / seconds,
+                    percentiles(responseTime), percentiles(serviceTime));
+        }
+        System.out.printf("%-8s %10d %8d %10.1f | %-36s |%n", "TOTAL", totalResponseTime.getTotalCount(),
+                totalErrors, totalResponseTime.getTotalCount() / seconds, percentiles(totalResponseTime));
+    }
+
+    private static String percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return "-";
+        }
+        return String.format("%.2f / %.2f / %.2f / %.2f",
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode readJson(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static UserOperation[] expandWeights(Map<UserOperation, Integer> mix) {
+        List<UserOperation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix must have a positive weight");
+        }
+        return operations.toArray(UserOperation[]::new);
+    }
+}
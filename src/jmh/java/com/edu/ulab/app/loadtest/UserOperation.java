@@ -0,0 +1,8 @@
+package com.edu.ulab.app.loadtest;
+
+enum UserOperation {
+    CREATE,
+    UPDATE,
+    GET,
+    DELETE
+}
@@ -0,0 +1,44 @@
+package com.edu.ulab.app.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Пользователи, созданные во время теста: из них выбираются цели для get, update и delete.
+ */
+class UserPool {
+    private final List<CreatedUser> users = new ArrayList<>();
+
+    record CreatedUser(long userId, List<Long> bookIds) {
+    }
+
+    synchronized void add(CreatedUser user) {
+        users.add(user);
+    }
+
+    synchronized CreatedUser random() {
+        if (users.isEmpty()) {
+            return null;
+        }
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    /**
+     * Убирает случайного пользователя из пула, чтобы его не выбрали после удаления.
+     */
+    synchronized CreatedUser takeRandom() {
+        if (users.isEmpty()) {
+            return null;
+        }
+        int index = ThreadLocalRandom.current().nextInt(users.size());
+        CreatedUser user = users.get(index);
+        users.set(index, users.get(users.size() - 1));
+        users.remove(users.size() - 1);
+        return user;
+    }
+
+    synchronized int size() {
+        return users.size();
+    }
+}
@@ -0,0 +1,107 @@
+package com.edu.ulab.app.cache;
+
+import com.edu.ulab.app.concurrent.SingleFlight;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный по размеру и времени жизни кэш ответов {@link UserBookResponse}.
+ * Загруженное значение кладётся в кэш, только если за время загрузки не было инвалидаций
+ * в его страйпе, поэтому чтение, начатое до коммита записи, не может вернуть в кэш устаревшие данные.
+ * Одновременные промахи по одному пользователю схлопываются в одну загрузку.
+ */
+@Slf4j
+@Component
+public class UserBookCache {
+    private static final int VERSION_STRIPES = 64;
+
+    private final Cache<Long, UserBookResponse> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final SingleFlight<Long, UserBookResponse> loads;
+
+    public UserBookCache(@Value("${user-cache.max-size:10000}") long maxSize,
+                         @Value("${user-cache.ttl:5m}") Duration ttl,
+                         @Value("${user-cache.load-timeout:5s}") Duration loadTimeout,
+                         MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.loads = new SingleFlight<>("userBooks", loadTimeout, meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userBooks");
+        log.info("Created user book cache: maxSize {}, ttl {}, loadTimeout {}", maxSize, ttl, loadTimeout);
+    }
+
+    public UserBookResponse get(Long userId, Supplier<UserBookResponse> loader) {
+        UserBookResponse cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.execute(userId, () -> {
+            int stripe = stripe(userId);
+            long version = versions.get(stripe);
+            UserBookResponse loaded = loader.get();
+            cache.asMap().compute(userId, (id, current) -> versions.get(stripe) == version ? loaded : current);
+            return loaded;
+        });
+    }
+
+    /**
+     * Пакетное чтение: все промахи загружаются одним вызовом {@code loader} с той же защитой от устаревших значений,
+     * что и в {@link #get}. Ответ упорядочен как {@code userIds}; не найденных загрузчиком пользователей в нём нет.
+     */
+    public Map<Long, UserBookResponse> getAll(Collection<Long> userIds,
+                                              Function<Collection<Long>, Map<Long, UserBookResponse>> loader) {
+        Map<Long, UserBookResponse> responses = new LinkedHashMap<>();
+        Map<Long, Long> versionsByMissingId = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            UserBookResponse cached = cache.getIfPresent(userId);
+            responses.put(userId, cached);
+            if (cached == null) {
+                versionsByMissingId.put(userId, versions.get(stripe(userId)));
+            }
+        }
+        if (!versionsByMissingId.isEmpty()) {
+            loader.apply(versionsByMissingId.keySet()).forEach((userId, loaded) -> {
+                int stripe = stripe(userId);
+                long version = versionsByMissingId.get(userId);
+                cache.asMap().compute(userId, (id, current) -> versions.get(stripe) == version ? loaded : current);
+                responses.put(userId, loaded);
+            });
+        }
+        responses.values().removeIf(Objects::isNull);
+        return responses;
+    }
+
+    /**
+     * Вызывается после коммита записи, затрагивающей пользователя.
+     */
+    public void invalidate(Long userId) {
+        cache.asMap().compute(userId, (id, current) -> {
+            versions.incrementAndGet(stripe(id));
+            return null;
+        });
+        loads.forget(userId);
+    }
+
+    private static int stripe(Long userId) {
+        int hash = userId.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+}
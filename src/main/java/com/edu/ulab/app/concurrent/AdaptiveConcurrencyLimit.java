@@ -0,0 +1,111 @@
+package com.edu.ulab.app.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Адаптивный предел одновременных запросов по градиенту задержки. Длинное среднее задержки считается
+ * «нормой», короткое — текущим состоянием; пока они близки, предел растёт на {@code sqrt(limit)},
+ * когда текущая задержка превышает норму больше чем в {@code tolerance} раз — уменьшается пропорционально,
+ * но не более чем вдвое за один замер. Запросы сверх предела не ждут, а сразу отклоняются.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter accepted;
+    private final Counter rejected;
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit,
+                                    double tolerance, double smoothing, MeterRegistry meterRegistry) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 0 < min-limit <= initial-limit <= max-limit: "
+                    + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        if (tolerance < 1 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Expected tolerance >= 1 and 0 < smoothing <= 1: "
+                    + tolerance + ", " + smoothing);
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        Tags tags = Tags.of("name", name);
+        this.accepted = meterRegistry.counter("concurrency.limit.requests", tags.and("result", "accepted"));
+        this.rejected = meterRegistry.counter("concurrency.limit.requests", tags.and("result", "rejected"));
+        meterRegistry.gauge("concurrency.limit", tags, this, AdaptiveConcurrencyLimit::getLimit);
+        meterRegistry.gauge("concurrency.limit.inflight", tags, inFlight);
+    }
+
+    /**
+     * @return {@code true}, если запрос допущен; тогда после него обязательно вызвать {@link #release}
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        accepted.increment();
+        return true;
+    }
+
+    /**
+     * Освобождает место без замера, например после запроса, время которого зависит от объёма тела.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightBefore);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightBefore) {
+        double rtt = Math.max(rttNanos, 1);
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        longRtt += (rtt - longRtt) / LONG_WINDOW;
+        // после перегрузки норма долго остаётся завышенной; подтягиваем её к текущей задержке
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        // загружена меньше половины предела: задержка ничего не говорит о том, выдержим ли больше
+        if (inFlightBefore < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,99 @@
+package com.edu.ulab.app.concurrent;
+
+import com.edu.ulab.app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Изолированный пул разрешений: не больше {@code maxConcurrent} одновременных операций, не больше
+ * {@code maxQueue} ожидающих. Ожидание ограничено {@code maxWait}; переполнение очереди и таймаут дают 503,
+ * так что всплеск одного вида операций не занимает потоки и соединения, нужные другим.
+ */
+public class Bulkhead {
+    private final String name;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter queueFull;
+    private final Counter timedOut;
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, Duration maxWait, MeterRegistry meterRegistry) {
+        if (maxConcurrent <= 0 || maxQueue < 0) {
+            throw new IllegalArgumentException("Bulkhead " + name + " expects max-concurrent > 0 and max-queue >= 0: "
+                    + maxConcurrent + ", " + maxQueue);
+        }
+        this.name = name;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent, true);
+        Tags tags = Tags.of("name", name);
+        this.waitTimer = Timer.builder("bulkhead.wait")
+                .description("Time spent waiting for a bulkhead permit")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.queueFull = meterRegistry.counter("bulkhead.rejected", tags.and("reason", "queue_full"));
+        this.timedOut = meterRegistry.counter("bulkhead.rejected", tags.and("reason", "timeout"));
+        meterRegistry.gauge("bulkhead.queue", tags, waiting);
+        meterRegistry.gauge("bulkhead.active", tags, permits, p -> maxConcurrent - p.availablePermits());
+    }
+
+    /**
+     * Занимает разрешение; после операции обязательно вызвать {@link #release()}.
+     *
+     * @throws ServiceUnavailableException если очередь полна или разрешение не освободилось за {@code maxWait}
+     */
+    public void acquire() {
+        // tryAcquire() без таймаута обгоняет очередь даже у честного семафора
+        if (tryAcquireNow()) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            queueFull.increment();
+            throw new ServiceUnavailableException("Bulkhead " + name + " queue is full");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for bulkhead " + name);
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            timedOut.increment();
+            throw new ServiceUnavailableException("Timed out waiting for bulkhead " + name);
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    private boolean tryAcquireNow() {
+        try {
+            return permits.tryAcquire(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for bulkhead " + name);
+        }
+    }
+}
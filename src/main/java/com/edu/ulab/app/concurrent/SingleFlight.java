@@ -0,0 +1,88 @@
+package com.edu.ulab.app.concurrent;
+
+import com.edu.ulab.app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Схлопывание одновременных загрузок одного ключа: загрузчик выполняет только первый вызвавший поток,
+ * остальные ждут его результата или ошибки. После завершения ключ освобождается, результат не запоминается.
+ * Ожидающие потоки ждут не дольше {@code timeout}; сам загружающий поток таймаутом не ограничен.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final String name;
+    private final Duration timeout;
+    private final Counter loaded;
+    private final Counter coalesced;
+    private final Counter timedOut;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.timeout = timeout;
+        this.loaded = meterRegistry.counter("singleflight.calls", "name", name, "result", "loaded");
+        this.coalesced = meterRegistry.counter("singleflight.calls", "name", name, "result", "coalesced");
+        this.timedOut = meterRegistry.counter("singleflight.calls", "name", name, "result", "timeout");
+        meterRegistry.gaugeMapSize("singleflight.inflight", Tags.of("name", name), inFlight);
+    }
+
+    /**
+     * @throws ServiceUnavailableException если загрузка другого потока не завершилась за {@code timeout}
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> current = inFlight.putIfAbsent(key, flight);
+        if (current != null) {
+            coalesced.increment();
+            return await(key, current);
+        }
+        loaded.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Отвязывает текущую загрузку ключа: следующие вызовы начнут новую, а уже ждущие получат результат старой.
+     * Вызывается после записи, чтобы читатели, пришедшие после неё, не получили загруженное до коммита.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    private V await(K key, CompletableFuture<V> flight) {
+        try {
+            return flight.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new ServiceUnavailableException("Timed out waiting for " + name + " load of " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for " + name + " load of " + key);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.edu.ulab.app.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Набор блокировок, разделённый по userId на фиксированное число страйпов.
+ * Операции над разными пользователями выполняются параллельно, память не растёт с числом пользователей.
+ */
+@Slf4j
+@Component
+public class StripedUserLock {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+
+    public StripedUserLock(@Value("${user-lock.stripes:64}") int stripeCount,
+                           MeterRegistry meterRegistry) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("user-lock.stripes must be positive: " + stripeCount);
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.waitTimer = Timer.builder("user.lock.wait")
+                .description("Time spent waiting for a per-user lock")
+                .register(meterRegistry);
+        this.holdTimer = Timer.builder("user.lock.hold")
+                .description("Time a per-user lock was held")
+                .register(meterRegistry);
+        log.info("Created striped user lock with {} stripes", size);
+    }
+
+    public <T> T withLock(Long userId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(userId);
+        long waitStart = System.nanoTime();
+        lock.lock();
+        long holdStart = System.nanoTime();
+        waitTimer.record(holdStart - waitStart, TimeUnit.NANOSECONDS);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+            holdTimer.record(System.nanoTime() - holdStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void withLock(Long userId, Runnable action) {
+        withLock(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    private ReentrantLock stripeFor(Long userId) {
+        int hash = Objects.hashCode(userId);
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,33 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.storage.FsyncPolicy;
+import com.edu.ulab.app.storage.Storage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Slf4j
+@Configuration
+@Profile(Storage.PROFILE)
+public class StorageConfig {
+
+    /**
+     * Без {@code storage.data-dir} хранилище живёт только в памяти.
+     */
+    @Bean(destroyMethod = "close")
+    public Storage storage(@Value("${storage.data-dir:}") String dataDir,
+                           @Value("${storage.fsync:GROUP}") FsyncPolicy fsyncPolicy,
+                           @Value("${storage.journal-file-size:64MB}") DataSize journalFileSize) throws IOException {
+        if (dataDir.isBlank()) {
+            log.info("storage.data-dir is not set, storage is kept in memory only");
+            return new Storage();
+        }
+        return Storage.open(Path.of(dataDir), fsyncPolicy, Math.toIntExact(journalFileSize.toBytes()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.transaction.MeteredJpaTransactionManager;
+import com.edu.ulab.app.transaction.StorageTransactionManager;
+import com.edu.ulab.app.transaction.TransactionMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class TransactionConfig {
+    public static final String WRITE_TRANSACTION = "writeTransactionTemplate";
+    public static final String READ_TRANSACTION = "readTransactionTemplate";
+
+    @Bean
+    @Profile("!" + Storage.PROFILE)
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                         TransactionMetrics transactionMetrics,
+                                                         ObjectProvider<TransactionManagerCustomizers> customizers) {
+        MeteredJpaTransactionManager transactionManager =
+                new MeteredJpaTransactionManager(entityManagerFactory, transactionMetrics);
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Bean(name = "transactionManager")
+    @Profile(Storage.PROFILE)
+    public PlatformTransactionManager storageTransactionManager(TransactionMetrics transactionMetrics,
+                                                                ObjectProvider<TransactionManagerCustomizers> customizers) {
+        StorageTransactionManager transactionManager = new StorageTransactionManager(transactionMetrics);
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+
+    /**
+     * Одна транзакция на операцию записи фасада; вложенные вызовы сервисов присоединяются к ней.
+     */
+    @Bean(WRITE_TRANSACTION)
+    @Primary
+    public TransactionTemplate writeTransactionTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        return template;
+    }
+
+    /**
+     * Транзакция только для чтения: Hibernate переводит сессию в FlushMode.MANUAL и не делает dirty checking.
+     */
+    @Bean(READ_TRANSACTION)
+    public TransactionTemplate readTransactionTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        template.setReadOnly(true);
+        return template;
+    }
+}
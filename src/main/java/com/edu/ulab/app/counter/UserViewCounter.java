@@ -0,0 +1,123 @@
+package com.edu.ulab.app.counter;
+
+import com.edu.ulab.app.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчик просмотров пользователя ({@code ulab_edu.person.count}) с отложенной записью.
+ * Просмотры копятся в памяти и периодически сбрасываются в базу одним батчевым update,
+ * поэтому чтение не делает лишних обращений к базе и не берёт блокировок строк.
+ * Просмотры пишутся в {@link LongAdder} пользователя, так что частые просмотры одного пользователя
+ * не упираются в одну ячейку. Сброс подменяет текущее поколение счётчиков новым и суммирует старое,
+ * только дождавшись окончания начатых в нём записей: просмотр, пришедший во время сброса,
+ * попадает либо в этот сброс, либо в следующий.
+ */
+@Slf4j
+@Component
+public class UserViewCounter {
+    private volatile Generation pendingViews = new Generation();
+    private final UserService userService;
+    private final Counter flushedViews;
+    private final Counter failedFlushes;
+
+    public UserViewCounter(UserService userService,
+                           MeterRegistry meterRegistry) {
+        this.userService = userService;
+        this.flushedViews = meterRegistry.counter("user.views.flushed");
+        this.failedFlushes = meterRegistry.counter("user.views.flush.failures");
+        meterRegistry.gauge("user.views.pending.users", Tags.empty(), this, counter -> counter.pendingViews.size());
+    }
+
+    public void increment(Long userId) {
+        add(userId, 1);
+    }
+
+    @Scheduled(fixedDelayString = "${user-view-counter.flush-interval:PT5S}")
+    public synchronized void flush() {
+        Generation flushed = pendingViews;
+        pendingViews = new Generation();
+        Map<Long, Long> viewsByUserId = flushed.drain();
+        if (viewsByUserId.isEmpty()) {
+            return;
+        }
+
+        try {
+            userService.addViewCounts(viewsByUserId);
+            flushedViews.increment(viewsByUserId.values().stream().mapToLong(Long::longValue).sum());
+            log.info("Flushed view counts for {} users", viewsByUserId.size());
+        } catch (RuntimeException e) {
+            failedFlushes.increment();
+            viewsByUserId.forEach(this::add);
+            log.error("Failed to flush view counts, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void add(Long userId, long count) {
+        // поколение закрыто сбросом между чтением поля и записью - пишем в новое
+        while (!pendingViews.add(userId, count)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Просмотры, накопленные между двумя сбросами. Счётчики входов и выходов записи нужны сбросу,
+     * чтобы дождаться записей, заставших поколение открытым.
+     */
+    private static final class Generation {
+        private final ConcurrentHashMap<Long, LongAdder> views = new ConcurrentHashMap<>();
+        private final LongAdder entered = new LongAdder();
+        private final LongAdder exited = new LongAdder();
+        private volatile boolean sealed;
+
+        boolean add(Long userId, long count) {
+            entered.increment();
+            try {
+                if (sealed) {
+                    return false;
+                }
+                LongAdder userViews = views.get(userId);
+                if (userViews == null) {
+                    userViews = views.computeIfAbsent(userId, id -> new LongAdder());
+                }
+                userViews.add(count);
+                return true;
+            } finally {
+                exited.increment();
+            }
+        }
+
+        Map<Long, Long> drain() {
+            sealed = true;
+            // exited читается раньше entered: каждый учтённый выход уже учтён и как вход, поэтому равенство
+            // значит, что не осталось записи, которая застала поколение открытым и ещё не закончилась
+            long exits = exited.sum();
+            while (exits != entered.sum()) {
+                Thread.yield();
+                exits = exited.sum();
+            }
+            Map<Long, Long> viewsByUserId = new HashMap<>();
+            views.forEach((userId, userViews) -> viewsByUserId.put(userId, userViews.sum()));
+            return viewsByUserId;
+        }
+
+        int size() {
+            return views.size();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.edu.ulab.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Фильтр списка пользователей; {@code null} поля не ограничивают выборку.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserFilter {
+    private Integer minAge;
+    private Integer maxAge;
+    private String titlePrefix;
+
+    public boolean matches(int age, String title) {
+        return (minAge == null || age >= minAge)
+                && (maxAge == null || age <= maxAge)
+                && (titlePrefix == null || title.startsWith(titlePrefix));
+    }
+}
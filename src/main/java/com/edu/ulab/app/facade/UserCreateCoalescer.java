@@ -0,0 +1,215 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.exception.ServiceUnavailableException;
+import com.edu.ulab.app.transaction.StorageTransactionManager;
+import com.edu.ulab.app.transaction.TransactionMetrics;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Групповой коммит одиночных запросов создания: одновременные запросы копятся до {@code user-create-batch.max-size}
+ * штук или {@code user-create-batch.max-wait} от первого из них и сохраняются одной транзакцией через
+ * {@link UserDataFacade#createUsersWithBooks}. Если пачка падает, её запросы повторяются по одному,
+ * и ошибку получает только тот, чей запрос её вызвал. {@link StorageTransactionManager} откатом не отменяет
+ * уже сделанные записи, поэтому в профиле storage повтор создал бы пользователей дважды: там ошибку пачки
+ * получают все её запросы.
+ * Выключенный ({@code user-create-batch.enabled}) создаёт каждого пользователя в своей транзакции, как раньше.
+ * Коммит пачки засчитывается в {@code request.transaction.commits} каждому её запросу.
+ * Вызывающий поток ждёт ответа своей пачки, поэтому ограничение одновременных запросов перед коалесцером
+ * ограничивает и размер пачки: {@link com.edu.ulab.app.web.filter.BulkheadFilter} при включённом
+ * групповом создании не пропускает {@code POST /user/create} через пул записи, а соединения пачек
+ * ограничены числом потоков {@code user-create-batch.workers}.
+ */
+@Slf4j
+@Component
+public class UserCreateCoalescer {
+    private static final long POLL_MILLIS = 100;
+
+    private final UserDataFacade userDataFacade;
+    private final TransactionMetrics transactionMetrics;
+    private final boolean isolateFailures;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final int workerCount;
+    private final BlockingQueue<PendingCreate> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final DistributionSummary batchSizes;
+    private final Counter isolatedBatches;
+    private final Counter rejected;
+    private volatile boolean running;
+
+    public UserCreateCoalescer(UserDataFacade userDataFacade,
+                               @Value("${user-create-batch.enabled:false}") boolean enabled,
+                               @Value("${user-create-batch.max-size:32}") int maxBatchSize,
+                               @Value("${user-create-batch.max-wait:2ms}") Duration maxWait,
+                               @Value("${user-create-batch.queue-capacity:1000}") int queueCapacity,
+                               @Value("${user-create-batch.workers:2}") int workerCount,
+                               PlatformTransactionManager transactionManager,
+                               TransactionMetrics transactionMetrics,
+                               MeterRegistry meterRegistry) {
+        if (maxBatchSize <= 0 || workerCount <= 0) {
+            throw new IllegalArgumentException("user-create-batch.max-size and workers must be positive: "
+                    + maxBatchSize + ", " + workerCount);
+        }
+        this.userDataFacade = userDataFacade;
+        this.transactionMetrics = transactionMetrics;
+        this.isolateFailures = !(transactionManager instanceof StorageTransactionManager);
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.workerCount = workerCount;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("user.create.batch.size")
+                .description("Create requests committed in one transaction")
+                .register(meterRegistry);
+        this.isolatedBatches = meterRegistry.counter("user.create.batch.isolated");
+        this.rejected = meterRegistry.counter("user.create.batch.rejected");
+        meterRegistry.gaugeCollectionSize("user.create.batch.queue", Tags.empty(), queue);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "user-create-batch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Started user create batching: maxSize {}, maxWait {} us, workers {}",
+                maxBatchSize, TimeUnit.NANOSECONDS.toMicros(maxWaitNanos), workerCount);
+    }
+
+    /**
+     * Дожидается сохранения уже собранных пачек; запросы, оставшиеся в очереди, получают 503.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        List<PendingCreate> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(create -> create.response().completeExceptionally(
+                new ServiceUnavailableException("Application is shutting down")));
+    }
+
+    public UserBookResponse createUserWithBooks(UserBookRequest request) {
+        if (!enabled) {
+            return userDataFacade.createUserWithBooks(request);
+        }
+        PendingCreate create = new PendingCreate(request, new CompletableFuture<>(),
+                transactionMetrics.currentRequest(), System.nanoTime());
+        if (!running || !queue.offer(create)) {
+            rejected.increment();
+            throw new ServiceUnavailableException("User create queue is full");
+        }
+        if (!running && queue.remove(create)) {
+            // stop() уже разобрал очередь, забирать запрос некому
+            throw new ServiceUnavailableException("Application is shutting down");
+        }
+        try {
+            return create.response().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void runWorker() {
+        List<PendingCreate> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingCreate first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCreate next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("User create batch worker failed", e);
+            } finally {
+                batch.forEach(create -> create.response().completeExceptionally(
+                        new IllegalStateException("User create batch was not completed")));
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingCreate> batch) {
+        batchSizes.record(batch.size());
+        List<UserBookResponse> responses;
+        try {
+            responses = transactionMetrics.countCommitsFor(batch.stream().map(PendingCreate::commits).toList(),
+                    () -> userDataFacade.createUsersWithBooks(batch.stream()
+                            .map(PendingCreate::request)
+                            .toList()));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1 || !isolateFailures) {
+                batch.forEach(create -> create.response().completeExceptionally(e));
+                return;
+            }
+            isolatedBatches.increment();
+            log.warn("Batch of {} user creates failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (PendingCreate create : batch) {
+                try {
+                    create.response().complete(transactionMetrics.countCommitsFor(List.of(create.commits()),
+                            () -> userDataFacade.createUserWithBooks(create.request())));
+                } catch (RuntimeException itemFailure) {
+                    create.response().completeExceptionally(itemFailure);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).response().complete(responses.get(i));
+        }
+    }
+
+    private record PendingCreate(UserBookRequest request,
+                                 CompletableFuture<UserBookResponse> response,
+                                 TransactionMetrics.RequestCommits commits,
+                                 long enqueuedNanos) {
+    }
+}
@@ -1,127 +1,292 @@
 package com.edu.ulab.app.facade;
 
+import com.edu.ulab.app.cache.UserBookCache;
+import com.edu.ulab.app.concurrent.StripedUserLock;
+import com.edu.ulab.app.config.TransactionConfig;
+import com.edu.ulab.app.counter.UserViewCounter;
 import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserFilter;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import com.edu.ulab.app.exception.NotFoundException;
 import com.edu.ulab.app.mapper.BookMapper;
 import com.edu.ulab.app.mapper.UserMapper;
-import com.edu.ulab.app.service.impl.BookServiceImpl;
-import com.edu.ulab.app.service.impl.UserServiceImpl;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
 import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.BookResponse;
+import com.edu.ulab.app.web.response.UserBookDetailResponse;
 import com.edu.ulab.app.web.response.UserBookResponse;
+import com.edu.ulab.app.web.response.UserResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 @Component
 public class UserDataFacade {
-    private final UserServiceImpl userService;
-    private final BookServiceImpl bookService;
+    private final UserService userService;
+    private final BookService bookService;
     private final UserMapper userMapper;
     private final BookMapper bookMapper;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final StripedUserLock userLock;
+    private final UserBookCache userBookCache;
+    private final UserViewCounter userViewCounter;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final Counter modifiedBookRows;
+    private final Counter unchangedBookRows;
 
-    public UserDataFacade(UserServiceImpl userService,
-                          BookServiceImpl bookService,
+    public UserDataFacade(UserService userService,
+                          BookService bookService,
                           UserMapper userMapper,
-                          BookMapper bookMapper) {
+                          BookMapper bookMapper,
+                          StripedUserLock userLock,
+                          UserBookCache userBookCache,
+                          UserViewCounter userViewCounter,
+                          @Qualifier(TransactionConfig.WRITE_TRANSACTION) TransactionTemplate writeTransaction,
+                          @Qualifier(TransactionConfig.READ_TRANSACTION) TransactionTemplate readTransaction,
+                          MeterRegistry meterRegistry) {
         this.userService = userService;
         this.bookService = bookService;
         this.userMapper = userMapper;
         this.bookMapper = bookMapper;
+        this.userLock = userLock;
+        this.userBookCache = userBookCache;
+        this.userViewCounter = userViewCounter;
+        this.writeTransaction = writeTransaction;
+        this.readTransaction = readTransaction;
+        this.modifiedBookRows = meterRegistry.counter("book.update.rows", "result", "modified");
+        this.unchangedBookRows = meterRegistry.counter("book.update.rows", "result", "unchanged");
     }
 
     public UserBookResponse createUserWithBooks(UserBookRequest userBookRequest) {
-        UserBookResponse build;
-        try {
-            lock.lock();
-            log.info("Got user book create request: {}", userBookRequest);
-            UserDto userDto = userMapper.userRequestToUserDto(userBookRequest.getUserRequest());
-            log.info("Mapped user request: {}", userDto);
-
-            UserDto createdUser = userService.createUser(userDto);
-            log.info("Created user: {}", createdUser);
-
-            List<Long> bookIdList = userBookRequest.getBookRequests()
-                    .stream()
-                    .filter(Objects::nonNull)
-                    .map(bookMapper::bookRequestToBookDto)
-                    .peek(bookDto -> bookDto.setUserId(createdUser.getId()))
-                    .peek(mappedBookDto -> log.info("mapped book: {}", mappedBookDto))
-                    .map(bookService::createBook)
-                    .peek(createdBook -> log.info("Created book: {}", createdBook))
-                    .map(BookDto::getId)
-                    .toList();
-            log.info("Collected book ids: {}", bookIdList);
-            build = UserBookResponse.builder()
-                    .userId(createdUser.getId())
+        log.info("Got user book create request: {}", userBookRequest);
+        UserBookResponse response = createUsersWithBooks(List.of(userBookRequest)).get(0);
+        log.info("Created user with books: {}", response);
+        return response;
+    }
+
+    /**
+     * Создаёт пачку пользователей с книгами в одной транзакции: пользователи и книги сохраняются
+     * батчевыми insert-ами. Порядок ответов совпадает с порядком запросов.
+     */
+    public List<UserBookResponse> createUsersWithBooks(List<UserBookRequest> userBookRequests) {
+        List<UserBookResponse> responses =
+                writeTransaction.execute(status -> createUsersWithBooksInTransaction(userBookRequests));
+        responses.forEach(response -> userBookCache.invalidate(response.getUserId()));
+        return responses;
+    }
+
+    private List<UserBookResponse> createUsersWithBooksInTransaction(List<UserBookRequest> userBookRequests) {
+        List<UserDto> userDtoList = userBookRequests.stream()
+                .map(UserBookRequest::getUserRequest)
+                .map(userMapper::userRequestToUserDto)
+                .peek(userDto -> userDto.setId(null))
+                .toList();
+        List<UserDto> createdUsers = userService.createUsers(userDtoList);
+        log.info("Created users: {}", createdUsers.size());
+
+        List<Integer> bookCounts = new ArrayList<>(userBookRequests.size());
+        List<BookDto> bookDtoList = new ArrayList<>();
+        for (int i = 0; i < userBookRequests.size(); i++) {
+            List<BookDto> userBooks = mapNewBooks(userBookRequests.get(i), createdUsers.get(i).getId());
+            bookCounts.add(userBooks.size());
+            bookDtoList.addAll(userBooks);
+        }
+
+        Iterator<Long> createdBookIds = bookService.createBooks(bookDtoList)
+                .stream()
+                .map(BookDto::getId)
+                .iterator();
+        log.info("Created books: {}", bookDtoList.size());
+
+        List<UserBookResponse> responses = new ArrayList<>(createdUsers.size());
+        for (int i = 0; i < createdUsers.size(); i++) {
+            List<Long> bookIdList = new ArrayList<>(bookCounts.get(i));
+            for (int j = 0; j < bookCounts.get(i); j++) {
+                bookIdList.add(createdBookIds.next());
+            }
+            responses.add(UserBookResponse.builder()
+                    .userId(createdUsers.get(i).getId())
                     .booksIdList(bookIdList)
-                    .build();
-        } finally {
-            lock.unlock();
+                    .build());
         }
-        return build;
+        return responses;
     }
 
     public UserBookResponse updateUserWithBooks(UserBookRequest userBookRequest) {
-        UserBookResponse build;
-        try {
-            lock.lock();
-            UserDto userDto = userMapper.userRequestToUserDto(userBookRequest.getUserRequest());
-            userService.updateUser(userDto);
-            log.info("updateUser from UserDataFacade successfully: {}", userDto);
-
-            List<Long> bookIdList = userBookRequest.getBookRequests().stream()
-                    .filter(Objects::nonNull)
-                    .map(bookMapper::bookRequestToBookDto)
-                    .map(bookService::updateBook)
-                    .map(BookDto::getId)
-                    .toList();
-
-            log.info("updateBook from UserDataFacade successfully: {}", bookIdList);
-
-            build = UserBookResponse.builder()
-                    .userId(userDto.getId())
-                    .booksIdList(bookIdList)
-                    .build();
-        } finally {
-            lock.unlock();
-        }
-        return build;
+        UserDto userDto = userMapper.userRequestToUserDto(userBookRequest.getUserRequest());
+        return userLock.withLock(userDto.getId(), () -> {
+            try {
+                return writeTransaction.execute(status -> updateUserWithBooksInTransaction(userBookRequest, userDto));
+            } finally {
+                userBookCache.invalidate(userDto.getId());
+            }
+        });
+    }
+
+    private UserBookResponse updateUserWithBooksInTransaction(UserBookRequest userBookRequest, UserDto userDto) {
+        userService.updateUser(userDto);
+        log.info("updateUser from UserDataFacade successfully: {}", userDto);
+
+        List<BookDto> bookDtoList = userBookRequest.getBookRequests().stream()
+                .filter(Objects::nonNull)
+                .map(bookMapper::bookRequestToBookDto)
+                .peek(bookDto -> bookDto.setUserId(userDto.getId()))
+                .toList();
+
+        int modified = bookService.updateBooks(userDto.getId(), bookDtoList);
+        modifiedBookRows.increment(modified);
+        unchangedBookRows.increment(bookDtoList.size() - modified);
+
+        List<Long> bookIdList = bookDtoList.stream()
+                .map(BookDto::getId)
+                .toList();
+
+        log.info("updateBook from UserDataFacade successfully: {}, modified: {}", bookIdList, modified);
+
+        return UserBookResponse.builder()
+                .userId(userDto.getId())
+                .booksIdList(bookIdList)
+                .build();
     }
 
     public UserBookResponse getUserWithBooks(Long userId) {
-        UserBookResponse build;
-        try {
-            lock.lock();
-            UserDto userById = userService.getUserById(userId);
-            userService.updateUser(userById);
-
-            List<Long> userBooks = bookService.getBookByUserId(userId);
-
-            log.info("getUserWithBooks from UserDataFacade successfully: {}, {}", userById, userBooks);
-
-            build = UserBookResponse.builder()
-                    .userId(userById.getId())
-                    .booksIdList(userBooks)
-                    .build();
-        } finally {
-            lock.unlock();
+        UserBookResponse response =
+                userBookCache.get(userId, () -> readTransaction.execute(status -> getUserWithBooksInTransaction(userId)));
+        userViewCounter.increment(userId);
+        return response;
+    }
+
+    private UserBookResponse getUserWithBooksInTransaction(Long userId) {
+        UserDto userById = userService.getUserById(userId);
+        if (userById == null) {
+            throw new NotFoundException("User not found: " + userId);
         }
-        return build;
+
+        List<Long> userBooks = bookService.getBookByUserId(userId);
+
+        log.info("getUserWithBooks from UserDataFacade successfully: {}, {}", userById, userBooks);
+
+        return UserBookResponse.builder()
+                .userId(userById.getId())
+                .booksIdList(userBooks)
+                .build();
+    }
+
+    /**
+     * Пакетное чтение пользователей с id книг: промахи кэша читаются двумя запросами на всю пачку,
+     * пользователями по id и книгами по person_id. Ненайденные пользователи в ответ не попадают.
+     */
+    public Map<Long, UserBookResponse> getUsersWithBooks(Collection<Long> userIds) {
+        Map<Long, UserBookResponse> responses = userBookCache.getAll(userIds,
+                missingIds -> readTransaction.execute(status -> getUsersWithBooksInTransaction(missingIds)));
+        responses.keySet().forEach(userViewCounter::increment);
+        return responses;
+    }
+
+    private Map<Long, UserBookResponse> getUsersWithBooksInTransaction(Collection<Long> userIds) {
+        List<UserDto> users = userService.getUsersByIds(userIds);
+        Map<Long, List<Long>> bookIdsByUserId = bookService.getBookIdsByUserIds(users.stream()
+                .map(UserDto::getId)
+                .toList());
+
+        Map<Long, UserBookResponse> responses = new HashMap<>(users.size() * 2);
+        for (UserDto user : users) {
+            responses.put(user.getId(), UserBookResponse.builder()
+                    .userId(user.getId())
+                    .booksIdList(bookIdsByUserId.getOrDefault(user.getId(), List.of()))
+                    .build());
+        }
+        log.info("getUsersWithBooks from UserDataFacade successfully: requested {}, found {}",
+                userIds.size(), responses.size());
+        return responses;
+    }
+
+    /**
+     * До {@code limit} пользователей под фильтром с id больше {@code afterUserId}, по возрастанию id.
+     */
+    public List<UserResponse> getUsers(UserFilter filter, long afterUserId, int limit) {
+        List<UserDto> users = readTransaction.execute(status -> userService.getUsersPage(filter, afterUserId, limit));
+        log.info("getUsers from UserDataFacade successfully: {}, after {}, size {}", filter, afterUserId, users.size());
+        return users.stream()
+                .map(userMapper::userDtoToUserResponse)
+                .toList();
+    }
+
+    /**
+     * До {@code limit} книг пользователя с id больше {@code afterBookId}, по возрастанию id.
+     */
+    public List<BookResponse> getUserBooks(Long userId, long afterBookId, int limit) {
+        List<BookDto> books = readTransaction.execute(status -> bookService.getBooksPage(userId, afterBookId, limit));
+        log.info("getUserBooks from UserDataFacade successfully: {}, after {}, size {}", userId, afterBookId, books.size());
+        return books.stream()
+                .map(bookMapper::bookDtoToBookResponse)
+                .toList();
+    }
+
+    /**
+     * Пользователь с полными данными книг; читается одним запросом, без догрузки ленивых связей.
+     */
+    public UserBookDetailResponse getUserWithBookDetails(Long userId) {
+        UserWithBooksDto userWithBooks = readTransaction.execute(status -> userService.getUserWithBooksById(userId));
+        if (userWithBooks == null) {
+            throw new NotFoundException("User not found: " + userId);
+        }
+        userViewCounter.increment(userId);
+
+        UserDto user = userWithBooks.getUser();
+        log.info("getUserWithBookDetails from UserDataFacade successfully: {}, books: {}",
+                user, userWithBooks.getBooks().size());
+
+        return UserBookDetailResponse.builder()
+                .userId(user.getId())
+                .fullName(user.getFullName())
+                .title(user.getTitle())
+                .age(user.getAge())
+                .books(userWithBooks.getBooks()
+                        .stream()
+                        .map(bookMapper::bookDtoToBookResponse)
+                        .toList())
+                .build();
     }
 
     public void deleteUserWithBooks(Long userId) {
-        try {
-            lock.lock();
-            userService.deleteUserById(userId);
-            bookService.deleteBookByPerson_id(userId);
-            log.info("deleteUserWithBooks from UserDataFacade successfully: {}", userId);
-        } finally {
-            lock.unlock();
+        userLock.withLock(userId, () -> {
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    bookService.deleteBookByPerson_id(userId);
+                    userService.deleteUserById(userId);
+                });
+            } finally {
+                userBookCache.invalidate(userId);
+            }
+        });
+        log.info("deleteUserWithBooks from UserDataFacade successfully: {}", userId);
+    }
+
+    private List<BookDto> mapNewBooks(UserBookRequest userBookRequest, Long userId) {
+        if (userBookRequest.getBookRequests() == null) {
+            return List.of();
         }
+        return userBookRequest.getBookRequests()
+                .stream()
+                .filter(Objects::nonNull)
+                .map(bookMapper::bookRequestToBookDto)
+                .peek(bookDto -> bookDto.setId(null))
+                .peek(bookDto -> bookDto.setUserId(userId))
+                .toList();
     }
 }
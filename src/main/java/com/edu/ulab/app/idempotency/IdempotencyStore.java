@@ -0,0 +1,162 @@
+package com.edu.ulab.app.idempotency;
+
+import com.edu.ulab.app.exception.BadRequestException;
+import com.edu.ulab.app.exception.ConflictException;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Хранилище ответов на запросы создания по идентификатору запроса {@code rqid}.
+ * Повтор уже выполненного запроса получает сохранённый ответ без обращения к записи; повтор, пришедший,
+ * пока первый запрос ещё выполняется, ждёт его результата. Неудачное выполнение не запоминается,
+ * и следующий повтор выполняется заново.
+ * В памяти ответы живут ограниченное время и в ограниченном количестве; при {@code idempotency.persistent}
+ * они дополнительно сохраняются в таблицу, которая переживает рестарт.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    public static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    private final Cache<String, CompletableFuture<UserBookResponse>> executions;
+    private final IdempotentRequestRepository repository;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter restored;
+
+    public IdempotencyStore(@Value("${idempotency.max-size:100000}") long maxSize,
+                            @Value("${idempotency.ttl:1h}") Duration ttl,
+                            @Value("${idempotency.wait-timeout:30s}") Duration waitTimeout,
+                            ObjectProvider<IdempotentRequestRepository> repository,
+                            MeterRegistry meterRegistry) {
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.repository = repository.getIfAvailable();
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.executed = meterRegistry.counter("idempotency.requests", "result", "executed");
+        this.replayed = meterRegistry.counter("idempotency.requests", "result", "replayed");
+        this.restored = meterRegistry.counter("idempotency.requests", "result", "restored");
+        CaffeineCacheMetrics.monitor(meterRegistry, executions, "idempotentRequests");
+        log.info("Created idempotency store: maxSize {}, ttl {}, persistent {}", maxSize, ttl, this.repository != null);
+    }
+
+    /**
+     * Выполняет {@code action} не более одного раза на {@code requestId} за время жизни ответа.
+     *
+     * @throws ConflictException если первый запрос с тем же id не завершился за {@code idempotency.wait-timeout}
+     */
+    public UserBookResponse execute(String requestId, Supplier<UserBookResponse> action) {
+        if (requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            throw new BadRequestException("Request id must be at most " + MAX_REQUEST_ID_LENGTH + " characters");
+        }
+        while (true) {
+            CompletableFuture<UserBookResponse> execution = new CompletableFuture<>();
+            CompletableFuture<UserBookResponse> previous = executions.asMap().putIfAbsent(requestId, execution);
+            if (previous == null) {
+                return run(requestId, execution, action);
+            }
+            Optional<UserBookResponse> response = await(requestId, previous);
+            if (response.isPresent()) {
+                replayed.increment();
+                log.info("Replayed response for request {}", requestId);
+                return response.get();
+            }
+            // первое выполнение упало и уже убрано из кэша, выполняем повтор сами
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:PT10M}")
+    public void deleteExpired() {
+        if (repository == null) {
+            return;
+        }
+        try {
+            int deleted = repository.deleteExpired(Instant.now().minus(ttl));
+            log.info("Deleted expired idempotent requests: {}", deleted);
+        } catch (DataAccessException e) {
+            log.warn("Failed to delete expired idempotent requests", e);
+        }
+    }
+
+    private UserBookResponse run(String requestId,
+                                 CompletableFuture<UserBookResponse> execution,
+                                 Supplier<UserBookResponse> action) {
+        try {
+            Optional<UserBookResponse> persisted = repository == null
+                    ? Optional.empty()
+                    : repository.find(requestId, Instant.now().minus(ttl));
+            UserBookResponse response;
+            if (persisted.isPresent()) {
+                response = persisted.get();
+                restored.increment();
+                log.info("Restored response for request {}", requestId);
+            } else {
+                response = action.get();
+                executed.increment();
+                persist(requestId, response);
+            }
+            execution.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            executions.asMap().remove(requestId, execution);
+            execution.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Данные запроса уже закоммичены; если ответ не удалось сохранить, повтор после рестарта выполнится заново,
+     * но сам запрос от этого не падает.
+     */
+    private void persist(String requestId, UserBookResponse response) {
+        if (repository == null) {
+            return;
+        }
+        try {
+            repository.save(requestId, response);
+        } catch (DataAccessException e) {
+            log.warn("Failed to persist response for request {}", requestId, e);
+        }
+    }
+
+    /**
+     * @return ответ первого выполнения или пусто, если оно завершилось ошибкой
+     */
+    private Optional<UserBookResponse> await(String requestId, CompletableFuture<UserBookResponse> execution) {
+        try {
+            return Optional.of(execution.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (TimeoutException e) {
+            throw new ConflictException("Request " + requestId + " is still in progress, retry later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for request " + requestId);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.edu.ulab.app.idempotency;
+
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Ответы выполненных запросов создания в {@code ulab_edu.idempotent_request}: переживают рестарт
+ * и видны другим экземплярам приложения. Включается свойством {@code idempotency.persistent}.
+ */
+@Repository
+@Profile("!" + Storage.PROFILE)
+@ConditionalOnProperty(name = "idempotency.persistent", havingValue = "true")
+public class IdempotentRequestRepository {
+    private static final String SELECT_SQL =
+            "select user_id, book_ids from ulab_edu.idempotent_request where request_id = ? and created_at > ?";
+    private static final String INSERT_SQL =
+            "insert into ulab_edu.idempotent_request (request_id, user_id, book_ids) values (?, ?, ?) "
+                    + "on conflict (request_id) do nothing";
+    private static final String DELETE_EXPIRED_SQL =
+            "delete from ulab_edu.idempotent_request where created_at <= ?";
+    private static final RowMapper<UserBookResponse> RESPONSE_ROW_MAPPER = (rs, rowNum) -> {
+        Array bookIds = rs.getArray("book_ids");
+        return UserBookResponse.builder()
+                .userId(rs.getLong("user_id"))
+                .booksIdList(Arrays.stream((Integer[]) bookIds.getArray())
+                        .map(Integer::longValue)
+                        .toList())
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotentRequestRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param notBefore записи, созданные не позже этого момента, считаются истёкшими
+     */
+    public Optional<UserBookResponse> find(String requestId, Instant notBefore) {
+        return jdbcTemplate.query(SELECT_SQL, RESPONSE_ROW_MAPPER, requestId, Timestamp.from(notBefore))
+                .stream()
+                .findFirst();
+    }
+
+    public void save(String requestId, UserBookResponse response) {
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(INSERT_SQL);
+            statement.setString(1, requestId);
+            statement.setLong(2, response.getUserId());
+            statement.setArray(3, connection.createArrayOf("integer", response.getBooksIdList().toArray()));
+            return statement;
+        });
+    }
+
+    public int deleteExpired(Instant notBefore) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.from(notBefore));
+    }
+}
@@ -3,6 +3,7 @@ package com.edu.ulab.app.mapper;
 import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.response.BookResponse;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -13,7 +14,11 @@ public interface BookMapper {
 
     BookRequest bookDtoToBookRequest(BookDto bookDto);
 
+    @Mapping(source = "userId", target = "person.id")
     Book bookDtoToBook(BookDto bookDto);
 
+    @Mapping(source = "person.id", target = "userId")
     BookDto bookToBookDto(Book book);
+
+    BookResponse bookDtoToBookResponse(BookDto bookDto);
 }
@@ -3,6 +3,7 @@ package com.edu.ulab.app.mapper;
 import com.edu.ulab.app.dto.UserDto;
 import com.edu.ulab.app.entity.Person;
 import com.edu.ulab.app.web.request.UserRequest;
+import com.edu.ulab.app.web.response.UserResponse;
 import org.mapstruct.Mapper;
 
 @Mapper(componentModel = "spring")
@@ -14,4 +15,6 @@ public interface UserMapper {
     Person userDtoToPerson(UserDto userDto);
 
     UserDto personToUserDto(Person person);
+
+    UserResponse userDtoToUserResponse(UserDto userDto);
 }
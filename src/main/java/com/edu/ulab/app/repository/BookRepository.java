@@ -1,13 +1,20 @@
 package com.edu.ulab.app.repository;
 
 import com.edu.ulab.app.entity.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends CrudRepository<Book, Long> {
@@ -15,5 +22,51 @@ public interface BookRepository extends CrudRepository<Book, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select b from Book b where b.id = :id")
     Optional<Book> findByIdForUpdate(long id);
-    void deleteByPerson_Id(long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.person.id = :personId and b.id in :ids")
+    List<Book> findAllByPersonIdForUpdate(long personId, Collection<Long> ids);
+
+    @Query("select b.id from Book b where b.person.id = :personId order by b.id")
+    List<Long> findIdsByPersonId(long personId);
+
+    /**
+     * Страница книг пользователя после {@code afterId}: seek по индексу (person_id, id) без OFFSET,
+     * размер страницы задаётся {@code pageable}.
+     */
+    @Query("select b from Book b where b.person.id = :personId and b.id > :afterId order by b.id")
+    List<Book> findPageByPersonId(long personId, long afterId, Pageable pageable);
+
+    @Query("select b.person.id as userId, b.id as id from Book b where b.person.id in :personIds order by b.person.id, b.id")
+    List<BookIdView> findIdsByPersonIds(Collection<Long> personIds);
+
+    @Modifying
+    @Query("delete from Book b where b.person.id = :personId")
+    int deleteAllByPersonId(long personId);
+
+    /**
+     * Все книги курсором по {@code fetchSize} строк, без сущностей в контексте персистентности.
+     * Поток нужно закрыть внутри транзакции.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id as id, b.person.id as userId, b.title as title, b.author as author, b.pageCount as pageCount from Book b")
+    Stream<BookView> streamAll();
+
+    interface BookView {
+        Long getId();
+
+        Long getUserId();
+
+        String getTitle();
+
+        String getAuthor();
+
+        long getPageCount();
+    }
+
+    interface BookIdView {
+        Long getUserId();
+
+        Long getId();
+    }
 }
@@ -1,7 +1,9 @@
 package com.edu.ulab.app.repository;
 
 import com.edu.ulab.app.entity.Person;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -11,7 +13,7 @@ import javax.persistence.LockModeType;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends CrudRepository<Person, Long> {
+public interface UserRepository extends CrudRepository<Person, Long>, UserRepositoryCustom {
 
     /*
     User has books - book - started - comited status - other logic
@@ -22,4 +24,15 @@ public interface UserRepository extends CrudRepository<Person, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select p from Person p where p.id = :id")
     Optional<Person> findByIdForUpdate(long id);
+
+    /**
+     * Пользователь вместе с книгами одним select: bookSet подтягивается left join-ом.
+     */
+    @EntityGraph(attributePaths = "bookSet")
+    @Query("select p from Person p where p.id = :id")
+    Optional<Person> findWithBooksById(long id);
+
+    @Modifying
+    @Query("delete from Person p where p.id = :id")
+    int deleteByIdInBulk(long id);
 }
@@ -0,0 +1,21 @@
+package com.edu.ulab.app.repository;
+
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserFilter;
+
+import java.util.List;
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Прибавляет накопленные значения к счётчику {@code ulab_edu.person.count} одним JDBC-батчем.
+     */
+    void incrementCounts(Map<Long, Long> countsByUserId);
+
+    /**
+     * До {@code limit} пользователей с {@code id > afterId} по возрастанию id, подходящих под фильтр.
+     * Все читаемые колонки есть в {@code idx_ulab_edu_person_id_covering}, запрос обслуживается index-only scan.
+     */
+    List<UserDto> findPage(UserFilter filter, long afterId, int limit);
+}
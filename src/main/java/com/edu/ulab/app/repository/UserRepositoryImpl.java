@@ -0,0 +1,71 @@
+package com.edu.ulab.app.repository;
+
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    private static final String INCREMENT_COUNT_SQL =
+            "update ulab_edu.person set count = count + ? where id = ?";
+    private static final String PAGE_SELECT_SQL =
+            "select id, full_name, title, age from ulab_edu.person where id > ?";
+    private static final RowMapper<UserDto> USER_ROW_MAPPER = (rs, rowNum) -> {
+        UserDto userDto = new UserDto();
+        userDto.setId(rs.getLong("id"));
+        userDto.setFullName(rs.getString("full_name"));
+        userDto.setTitle(rs.getString("title"));
+        userDto.setAge(rs.getInt("age"));
+        return userDto;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void incrementCounts(Map<Long, Long> countsByUserId) {
+        if (countsByUserId.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = countsByUserId.entrySet()
+                .stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate(INCREMENT_COUNT_SQL, batchArgs);
+    }
+
+    @Override
+    public List<UserDto> findPage(UserFilter filter, long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(PAGE_SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        if (filter.getMinAge() != null) {
+            sql.append(" and age >= ?");
+            args.add(filter.getMinAge());
+        }
+        if (filter.getMaxAge() != null) {
+            sql.append(" and age <= ?");
+            args.add(filter.getMaxAge());
+        }
+        if (filter.getTitlePrefix() != null) {
+            sql.append(" and title like ? escape '\\'");
+            args.add(escapeLike(filter.getTitlePrefix()) + "%");
+        }
+        sql.append(" order by id limit ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), USER_ROW_MAPPER, args.toArray());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,38 @@
+package com.edu.ulab.app.search;
+
+import com.edu.ulab.app.dto.BookDto;
+
+import java.util.List;
+
+/**
+ * Изменение книг, публикуемое сервисом книг. Слушатели получают его после коммита транзакции,
+ * а вне транзакции - сразу.
+ */
+public sealed interface BookChangedEvent {
+
+    void applyTo(BookSearchIndex index);
+
+    /**
+     * Созданные или изменённые книги в сохранённом виде.
+     */
+    record Saved(List<BookDto> books) implements BookChangedEvent {
+        @Override
+        public void applyTo(BookSearchIndex index) {
+            books.forEach(index::put);
+        }
+    }
+
+    record Deleted(Long bookId) implements BookChangedEvent {
+        @Override
+        public void applyTo(BookSearchIndex index) {
+            index.remove(bookId);
+        }
+    }
+
+    record UserBooksDeleted(Long userId) implements BookChangedEvent {
+        @Override
+        public void applyTo(BookSearchIndex index) {
+            index.removeUserBooks(userId);
+        }
+    }
+}
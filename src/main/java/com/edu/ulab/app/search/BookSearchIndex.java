@@ -0,0 +1,388 @@
+package com.edu.ulab.app.search;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.storage.LongHashSet;
+import com.edu.ulab.app.storage.LongObjectHashMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Поиск книг по подстроке названия или автора в памяти.
+ * Для каждой триграммы нормализованного текста хранится множество id книг; запрос из трёх и более символов
+ * пересекает множества своих триграмм и проверяет кандидатов точным сравнением. Запросы из одного-двух символов
+ * ищутся по началам слов через отдельные множества префиксов.
+ * Индекс строится до старта веб-сервера и обновляется событиями {@link BookChangedEvent} после коммита.
+ */
+@Slf4j
+@Component
+public class BookSearchIndex implements SmartLifecycle {
+    private static final int GRAM_LENGTH = 3;
+    private static final long TRIGRAM_TAG = 1L << 48;
+    private static final long WORD_PREFIX_TAG = 2L << 48;
+
+    private static final Comparator<Hit> HIT_ORDER = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparingInt(hit -> hit.book().titleKey().length())
+            .thenComparingLong(hit -> hit.book().id());
+
+    private final BookService bookService;
+    private final LongObjectHashMap<IndexedBook> books = new LongObjectHashMap<>();
+    private final LongObjectHashMap<LongHashSet> bookIdsByUser = new LongObjectHashMap<>();
+    private final LongObjectHashMap<LongHashSet> postings = new LongObjectHashMap<>();
+    // меняется только под writeLock, читается метрикой без блокировки
+    private final AtomicLong indexBytes = new AtomicLong(
+            books.estimatedBytes() + bookIdsByUser.estimatedBytes() + postings.estimatedBytes());
+    private final Lock readLock;
+    private final Lock writeLock;
+    private final Timer searchTimer;
+    private volatile boolean running;
+
+    public BookSearchIndex(BookService bookService,
+                           MeterRegistry meterRegistry) {
+        this.bookService = bookService;
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+        this.searchTimer = Timer.builder("book.search")
+                .description("Time to search the in-memory book index")
+                .register(meterRegistry);
+        Gauge.builder("book.search.index.books", this, BookSearchIndex::size)
+                .description("Books in the in-memory search index")
+                .register(meterRegistry);
+        Gauge.builder("book.search.index.bytes", this, BookSearchIndex::estimatedBytes)
+                .description("Estimated heap footprint of the in-memory search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Построение индекса из всех книг. Фаза ниже фазы веб-сервера, поэтому запросы начинают приниматься
+     * уже с заполненным индексом.
+     */
+    @Override
+    public void start() {
+        long start = System.nanoTime();
+        bookService.forEachBook(this::put);
+        running = true;
+        log.info("Built book search index: {} books, {} grams, ~{} KB in {} ms", size(), postings.size(),
+                estimatedBytes() >> 10, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        event.applyTo(this);
+    }
+
+    /**
+     * Книги, в названии или авторе которых встречается {@code query} без учёта регистра.
+     * Порядок: совпадение целиком, начало строки, начало слова, подстрока; совпадение в названии выше
+     * совпадения в авторе того же вида; при равенстве - более короткое название, затем меньший id.
+     *
+     * @param offset сколько первых результатов пропустить
+     * @param limit  максимальный размер страницы
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+        return searchTimer.record(() -> {
+            readLock.lock();
+            try {
+                return find(key, offset, limit);
+            } finally {
+                readLock.unlock();
+            }
+        });
+    }
+
+    public int size() {
+        readLock.lock();
+        try {
+            return books.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Примерный объём памяти индекса в байтах: таблицы, множества id и сами строки.
+     * Считается нарастающим итогом при изменении индекса, поэтому не обходит его и не берёт блокировку.
+     */
+    public long estimatedBytes() {
+        return indexBytes.get();
+    }
+
+    void put(BookDto bookDto) {
+        if (bookDto.getId() == null) {
+            return;
+        }
+        IndexedBook book = IndexedBook.of(bookDto);
+        writeLock.lock();
+        try {
+            IndexedBook previous = books.get(book.id());
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(book);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void remove(Long bookId) {
+        writeLock.lock();
+        try {
+            IndexedBook book = books.get(bookId);
+            if (book != null) {
+                unindex(book);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void removeUserBooks(Long userId) {
+        writeLock.lock();
+        try {
+            LongHashSet bookIds = bookIdsByUser.get(userId);
+            if (bookIds == null) {
+                return;
+            }
+            for (long bookId : bookIds.toArray()) {
+                unindex(books.get(bookId));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private SearchResult find(String key, int offset, int limit) {
+        LongHashSet grams = new LongHashSet();
+        if (key.length() >= GRAM_LENGTH) {
+            collectTrigrams(key, grams);
+        } else {
+            grams.add(wordPrefix(key.charAt(0), key.length() > 1 ? key.charAt(1) : 0));
+        }
+        List<LongHashSet> lists = new ArrayList<>(grams.size());
+        for (long gram : grams.toArray()) {
+            LongHashSet bookIds = postings.get(gram);
+            if (bookIds == null) {
+                return new SearchResult(0, List.of());
+            }
+            lists.add(bookIds);
+        }
+        lists.sort(Comparator.comparingInt(LongHashSet::size));
+
+        String wordStart = " " + key;
+        boolean substring = key.length() >= GRAM_LENGTH;
+        int keep = offset + limit;
+        PriorityQueue<Hit> top = new PriorityQueue<>(HIT_ORDER.reversed());
+        long[] total = {0};
+        lists.get(0).forEach(bookId -> {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(bookId)) {
+                    return;
+                }
+            }
+            IndexedBook book = books.get(bookId);
+            int score = Math.max(2 * score(book.titleKey(), key, wordStart, substring),
+                    2 * score(book.authorKey(), key, wordStart, substring) - 1);
+            if (score <= 0) {
+                return;
+            }
+            total[0]++;
+            top.add(new Hit(book, score));
+            if (top.size() > keep) {
+                top.poll();
+            }
+        });
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(HIT_ORDER);
+        List<BookDto> page = hits.subList(Math.min(offset, hits.size()), hits.size())
+                .stream()
+                .map(hit -> hit.book().toBookDto())
+                .toList();
+        return new SearchResult(total[0], page);
+    }
+
+    private static int score(String text, String key, String wordStart, boolean substring) {
+        if (text.equals(key)) {
+            return 4;
+        }
+        if (text.startsWith(key)) {
+            return 3;
+        }
+        if (text.contains(wordStart)) {
+            return 2;
+        }
+        return substring && text.contains(key) ? 1 : 0;
+    }
+
+    private void index(IndexedBook book) {
+        long tableBytes = books.estimatedBytes();
+        books.put(book.id(), book);
+        indexBytes.addAndGet(books.estimatedBytes() - tableBytes + book.estimatedBytes());
+        addTo(bookIdsByUser, book.userId(), book.id());
+        for (long gram : grams(book).toArray()) {
+            addTo(postings, gram, book.id());
+        }
+    }
+
+    private void unindex(IndexedBook book) {
+        long tableBytes = books.estimatedBytes();
+        books.remove(book.id());
+        indexBytes.addAndGet(books.estimatedBytes() - tableBytes - book.estimatedBytes());
+        removeFrom(bookIdsByUser, book.userId(), book.id());
+        for (long gram : grams(book).toArray()) {
+            removeFrom(postings, gram, book.id());
+        }
+    }
+
+    private void addTo(LongObjectHashMap<LongHashSet> map, long key, long bookId) {
+        LongHashSet bookIds = map.get(key);
+        long before = map.estimatedBytes() + (bookIds != null ? bookIds.estimatedBytes() : 0);
+        if (bookIds == null) {
+            bookIds = new LongHashSet();
+            map.put(key, bookIds);
+        }
+        bookIds.add(bookId);
+        indexBytes.addAndGet(map.estimatedBytes() + bookIds.estimatedBytes() - before);
+    }
+
+    private void removeFrom(LongObjectHashMap<LongHashSet> map, long key, long bookId) {
+        LongHashSet bookIds = map.get(key);
+        if (bookIds == null) {
+            return;
+        }
+        long before = map.estimatedBytes() + bookIds.estimatedBytes();
+        if (bookIds.remove(bookId) && bookIds.isEmpty()) {
+            map.remove(key);
+            indexBytes.addAndGet(map.estimatedBytes() - before);
+        } else {
+            indexBytes.addAndGet(map.estimatedBytes() + bookIds.estimatedBytes() - before);
+        }
+    }
+
+    private static LongHashSet grams(IndexedBook book) {
+        LongHashSet grams = new LongHashSet();
+        for (String text : new String[]{book.titleKey(), book.authorKey()}) {
+            collectTrigrams(text, grams);
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) != ' ' && (i == 0 || text.charAt(i - 1) == ' ')) {
+                    char next = i + 1 < text.length() ? text.charAt(i + 1) : ' ';
+                    grams.add(wordPrefix(text.charAt(i), (char) 0));
+                    if (next != ' ') {
+                        grams.add(wordPrefix(text.charAt(i), next));
+                    }
+                }
+            }
+        }
+        return grams;
+    }
+
+    private static void collectTrigrams(String text, LongHashSet grams) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(TRIGRAM_TAG | (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2));
+        }
+    }
+
+    private static long wordPrefix(char first, char second) {
+        return WORD_PREFIX_TAG | (long) first << 32 | (long) second << 16;
+    }
+
+    /**
+     * Нижний регистр и одиночные пробелы между словами, без пробелов по краям.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param total число всех найденных книг, а не только попавших на страницу
+     */
+    public record SearchResult(long total, List<BookDto> books) {
+    }
+
+    private record Hit(IndexedBook book, int score) {
+    }
+
+    private record IndexedBook(long id, long userId, String title, String author, long pageCount,
+                               String titleKey, String authorKey) {
+
+        static IndexedBook of(BookDto book) {
+            return new IndexedBook(book.getId(), book.getUserId() == null ? 0 : book.getUserId(),
+                    book.getTitle(), book.getAuthor(), book.getPageCount(),
+                    normalize(book.getTitle()), normalize(book.getAuthor()));
+        }
+
+        BookDto toBookDto() {
+            BookDto bookDto = new BookDto();
+            bookDto.setId(id);
+            bookDto.setUserId(userId);
+            bookDto.setTitle(title);
+            bookDto.setAuthor(author);
+            bookDto.setPageCount(pageCount);
+            return bookDto;
+        }
+
+        /**
+         * Заголовок записи и полей плюс четыре строки с компактным однобайтовым содержимым.
+         */
+        long estimatedBytes() {
+            return 48L + 4 * 40L + length(title) + length(author) + titleKey.length() + authorKey.length();
+        }
+
+        private static int length(String text) {
+            return text == null ? 0 : text.length();
+        }
+    }
+}
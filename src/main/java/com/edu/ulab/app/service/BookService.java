@@ -3,19 +3,35 @@ package com.edu.ulab.app.service;
 
 import com.edu.ulab.app.dto.BookDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 
 public interface BookService {
     BookDto createBook(BookDto bookDto);
 
+    List<BookDto> createBooks(List<BookDto> bookDtos);
+
     BookDto updateBook(BookDto bookDto);
 
+    int updateBooks(Long userId, List<BookDto> bookDtos);
+
     BookDto getBookById(Long id);
 
     void deleteBookById(Long id);
 
     List<Long> getBookByUserId(Long id);
 
+    List<BookDto> getBooksPage(Long userId, long afterId, int limit);
+
+    Map<Long, List<Long>> getBookIdsByUserIds(Collection<Long> userIds);
+
     void deleteBookByPerson_id(Long userId);
+
+    /**
+     * Обход всех книг без загрузки их в память целиком.
+     */
+    void forEachBook(Consumer<BookDto> action);
 }
@@ -1,14 +1,30 @@
 package com.edu.ulab.app.service;
 
 import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserFilter;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 
 public interface UserService {
     UserDto createUser(UserDto userDto);
 
+    List<UserDto> createUsers(List<UserDto> userDtos);
+
     UserDto updateUser(UserDto userDto);
 
     UserDto getUserById(Long id);
 
+    List<UserDto> getUsersByIds(Collection<Long> ids);
+
+    List<UserDto> getUsersPage(UserFilter filter, long afterId, int limit);
+
+    UserWithBooksDto getUserWithBooksById(Long id);
+
     void deleteUserById(Long id);
+
+    void addViewCounts(Map<Long, Long> viewsByUserId);
 }
@@ -4,35 +4,66 @@ import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.mapper.BookMapper;
 import com.edu.ulab.app.repository.BookRepository;
+import com.edu.ulab.app.search.BookChangedEvent;
 import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.storage.Storage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@Profile("!" + Storage.PROFILE)
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public BookServiceImpl(BookRepository bookRepository,
-                           BookMapper bookMapper) {
+                           BookMapper bookMapper,
+                           ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
         this.bookMapper = bookMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional
     public BookDto createBook(BookDto bookDto) {
         Book book = bookMapper.bookDtoToBook(bookDto);
         log.info("Mapped book: {}", book);
         Book savedBook = bookRepository.save(book);
         log.info("Saved book: {}", savedBook);
-        return bookMapper.bookToBookDto(savedBook);
+        BookDto savedBookDto = bookMapper.bookToBookDto(savedBook);
+        eventPublisher.publishEvent(new BookChangedEvent.Saved(List.of(savedBookDto)));
+        return savedBookDto;
     }
 
     @Override
+    @Transactional
+    public List<BookDto> createBooks(List<BookDto> bookDtos) {
+        List<Book> books = bookDtos.stream()
+                .map(bookMapper::bookDtoToBook)
+                .toList();
+        log.info("Mapped books: {}", books.size());
+
+        List<BookDto> savedBooks = new ArrayList<>(books.size());
+        bookRepository.saveAll(books).forEach(savedBook -> savedBooks.add(bookMapper.bookToBookDto(savedBook)));
+        log.info("Saved books: {}", savedBooks.size());
+        eventPublisher.publishEvent(new BookChangedEvent.Saved(savedBooks));
+        return savedBooks;
+    }
+
+    @Override
+    @Transactional
     public BookDto updateBook(BookDto bookDto) {
         Optional<Book> byIdForUpdate = bookRepository.findByIdForUpdate(bookDto.getId());
         if (byIdForUpdate.isEmpty()) {
@@ -50,11 +81,39 @@ public class BookServiceImpl implements BookService {
 
         Book savedBook = bookRepository.save(book);
         log.info("updateBook from BookServiceImpl successfully: {}", savedBook);
+        eventPublisher.publishEvent(new BookChangedEvent.Saved(List.of(bookToBookDto)));
 
         return bookToBookDto;
     }
 
     @Override
+    @Transactional
+    public int updateBooks(Long userId, List<BookDto> bookDtos) {
+        Map<Long, BookDto> bookDtoById = new LinkedHashMap<>();
+        bookDtos.stream()
+                .filter(bookDto -> bookDto.getId() != null)
+                .forEach(bookDto -> bookDtoById.put(bookDto.getId(), bookDto));
+        if (bookDtoById.isEmpty()) {
+            return 0;
+        }
+
+        List<Book> changedBooks = bookRepository.findAllByPersonIdForUpdate(userId, bookDtoById.keySet())
+                .stream()
+                .filter(book -> applyChanges(book, bookDtoById.get(book.getId())))
+                .toList();
+        bookRepository.saveAll(changedBooks);
+        if (!changedBooks.isEmpty()) {
+            eventPublisher.publishEvent(new BookChangedEvent.Saved(changedBooks.stream()
+                    .map(bookMapper::bookToBookDto)
+                    .toList()));
+        }
+        log.info("updateBooks from BookServiceImpl successfully: userId {}, requested {}, modified {}",
+                userId, bookDtoById.size(), changedBooks.size());
+        return changedBooks.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public BookDto getBookById(Long id) {
         Optional<Book> bookById = bookRepository.findById(id);
         if (bookById.isEmpty()) {
@@ -67,29 +126,80 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional
     public void deleteBookById(Long id) {
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(new BookChangedEvent.Deleted(id));
         log.info("deleteBookById from BookServiceImpl successfully: {}", id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Long> getBookByUserId(Long id) {
-        Iterable<Book> allById = bookRepository.findAllById(Collections.singleton(id));
-
-        List<Book> listBook = new ArrayList<>();
-
-        allById.forEach(listBook::add);
-
-        List<Long> longList = listBook.stream()
-                .map(Book::getId)
-                .toList();
+        List<Long> longList = bookRepository.findIdsByPersonId(id);
         log.info("getBookByUserId from BookServiceImpl successfully: {}", longList);
         return longList;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<BookDto> getBooksPage(Long userId, long afterId, int limit) {
+        List<BookDto> books = bookRepository.findPageByPersonId(userId, afterId, PageRequest.of(0, limit))
+                .stream()
+                .map(bookMapper::bookToBookDto)
+                .toList();
+        log.info("getBooksPage from BookServiceImpl successfully: {}, after {}, size {}", userId, afterId, books.size());
+        return books;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<Long>> getBookIdsByUserIds(Collection<Long> userIds) {
+        Map<Long, List<Long>> bookIdsByUserId = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return bookIdsByUserId;
+        }
+        for (BookRepository.BookIdView book : bookRepository.findIdsByPersonIds(userIds)) {
+            bookIdsByUserId.computeIfAbsent(book.getUserId(), userId -> new ArrayList<>()).add(book.getId());
+        }
+        log.info("getBookIdsByUserIds from BookServiceImpl successfully: users {}, with books {}",
+                userIds.size(), bookIdsByUserId.size());
+        return bookIdsByUserId;
+    }
+
+    @Override
+    @Transactional
     public void deleteBookByPerson_id(Long userId) {
-        bookRepository.deleteByPerson_Id(userId);
-        log.info("deleteBookByUserId from BookServiceImpl successfully: {}", userId);
+        int deleted = bookRepository.deleteAllByPersonId(userId);
+        eventPublisher.publishEvent(new BookChangedEvent.UserBooksDeleted(userId));
+        log.info("deleteBookByUserId from BookServiceImpl successfully: {}, rows: {}", userId, deleted);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachBook(Consumer<BookDto> action) {
+        try (Stream<BookRepository.BookView> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                BookDto bookDto = new BookDto();
+                bookDto.setId(book.getId());
+                bookDto.setUserId(book.getUserId());
+                bookDto.setTitle(book.getTitle());
+                bookDto.setAuthor(book.getAuthor());
+                bookDto.setPageCount(book.getPageCount());
+                action.accept(bookDto);
+            });
+        }
+    }
+
+    private boolean applyChanges(Book book, BookDto bookDto) {
+        if (Objects.equals(book.getTitle(), bookDto.getTitle())
+                && Objects.equals(book.getAuthor(), bookDto.getAuthor())
+                && book.getPageCount() == bookDto.getPageCount()) {
+            return false;
+        }
+        book.setTitle(bookDto.getTitle());
+        book.setAuthor(bookDto.getAuthor());
+        book.setPageCount(bookDto.getPageCount());
+        return true;
     }
 }
@@ -0,0 +1,178 @@
+package com.edu.ulab.app.service.impl;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.search.BookChangedEvent;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.storage.BookRecord;
+import com.edu.ulab.app.storage.Storage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@Profile(Storage.PROFILE)
+public class StorageBookServiceImpl implements BookService {
+
+    private final Storage storage;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StorageBookServiceImpl(Storage storage,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.storage = storage;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public BookDto createBook(BookDto bookDto) {
+        BookRecord savedBook = storage.createBook(bookDto.getUserId(),
+                bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPageCount());
+        log.info("Saved book: {}", savedBook);
+        BookDto savedBookDto = toBookDto(savedBook);
+        eventPublisher.publishEvent(new BookChangedEvent.Saved(List.of(savedBookDto)));
+        return savedBookDto;
+    }
+
+    @Override
+    public List<BookDto> createBooks(List<BookDto> bookDtos) {
+        List<BookDto> savedBooks = bookDtos.stream()
+                .map(bookDto -> storage.createBook(bookDto.getUserId(),
+                        bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPageCount()))
+                .map(this::toBookDto)
+                .toList();
+        log.info("Saved books: {}", savedBooks.size());
+        eventPublisher.publishEvent(new BookChangedEvent.Saved(savedBooks));
+        return savedBooks;
+    }
+
+    @Override
+    public BookDto updateBook(BookDto bookDto) {
+        Optional<BookRecord> updatedBook = storage.updateBook(bookDto.getId(),
+                bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPageCount());
+        if (updatedBook.isEmpty()) {
+            log.error("updateBook from StorageBookServiceImpl an error has occurred");
+            return bookDto;
+        }
+        log.info("updateBook from StorageBookServiceImpl successfully: {}", updatedBook.get());
+        BookDto updatedBookDto = toBookDto(updatedBook.get());
+        eventPublisher.publishEvent(new BookChangedEvent.Saved(List.of(updatedBookDto)));
+        return updatedBookDto;
+    }
+
+    @Override
+    public int updateBooks(Long userId, List<BookDto> bookDtos) {
+        int requested = 0;
+        List<BookDto> modified = new ArrayList<>();
+        for (BookDto bookDto : bookDtos) {
+            if (bookDto.getId() == null) {
+                continue;
+            }
+            requested++;
+            Optional<BookRecord> book = storage.findBook(bookDto.getId())
+                    .filter(found -> found.userId() == userId);
+            if (book.isPresent() && isChanged(book.get(), bookDto)) {
+                storage.updateBook(bookDto.getId(), bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPageCount())
+                        .map(this::toBookDto)
+                        .ifPresent(modified::add);
+            }
+        }
+        if (!modified.isEmpty()) {
+            eventPublisher.publishEvent(new BookChangedEvent.Saved(modified));
+        }
+        log.info("updateBooks from StorageBookServiceImpl successfully: userId {}, requested {}, modified {}",
+                userId, requested, modified.size());
+        return modified.size();
+    }
+
+    @Override
+    public BookDto getBookById(Long id) {
+        Optional<BookRecord> bookById = storage.findBook(id);
+        if (bookById.isEmpty()) {
+            log.error("getBookById from StorageBookServiceImpl an error has occurred");
+            return null;
+        }
+        log.info("getBookById from StorageBookServiceImpl successfully: {}", id);
+        return toBookDto(bookById.get());
+    }
+
+    @Override
+    public void deleteBookById(Long id) {
+        boolean deleted = storage.deleteBook(id);
+        if (deleted) {
+            eventPublisher.publishEvent(new BookChangedEvent.Deleted(id));
+        }
+        log.info("deleteBookById from StorageBookServiceImpl successfully: {}, deleted: {}", id, deleted);
+    }
+
+    @Override
+    public List<Long> getBookByUserId(Long id) {
+        List<Long> bookIds = Arrays.stream(storage.findBookIds(id)).boxed().toList();
+        log.info("getBookByUserId from StorageBookServiceImpl successfully: {}", bookIds);
+        return bookIds;
+    }
+
+    @Override
+    public List<BookDto> getBooksPage(Long userId, long afterId, int limit) {
+        List<BookDto> books = storage.findBooksAfter(userId, afterId, limit)
+                .stream()
+                .map(this::toBookDto)
+                .toList();
+        log.info("getBooksPage from StorageBookServiceImpl successfully: {}, after {}, size {}", userId, afterId, books.size());
+        return books;
+    }
+
+    @Override
+    public Map<Long, List<Long>> getBookIdsByUserIds(Collection<Long> userIds) {
+        Map<Long, List<Long>> bookIdsByUserId = new HashMap<>();
+        for (Long userId : userIds) {
+            long[] bookIds = storage.findBookIds(userId);
+            if (bookIds.length > 0) {
+                bookIdsByUserId.put(userId, Arrays.stream(bookIds).boxed().toList());
+            }
+        }
+        log.info("getBookIdsByUserIds from StorageBookServiceImpl successfully: users {}, with books {}",
+                userIds.size(), bookIdsByUserId.size());
+        return bookIdsByUserId;
+    }
+
+    @Override
+    public void deleteBookByPerson_id(Long userId) {
+        int deleted = storage.deleteBooks(userId);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new BookChangedEvent.UserBooksDeleted(userId));
+        }
+        log.info("deleteBookByUserId from StorageBookServiceImpl successfully: {}, rows: {}", userId, deleted);
+    }
+
+    @Override
+    public void forEachBook(Consumer<BookDto> action) {
+        storage.forEachBook(book -> action.accept(toBookDto(book)));
+    }
+
+    private boolean isChanged(BookRecord book, BookDto bookDto) {
+        return !Objects.equals(book.title(), bookDto.getTitle())
+                || !Objects.equals(book.author(), bookDto.getAuthor())
+                || book.pageCount() != bookDto.getPageCount();
+    }
+
+    private BookDto toBookDto(BookRecord book) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(book.id());
+        bookDto.setUserId(book.userId());
+        bookDto.setTitle(book.title());
+        bookDto.setAuthor(book.author());
+        bookDto.setPageCount(book.pageCount());
+        return bookDto;
+    }
+}
@@ -0,0 +1,140 @@
+package com.edu.ulab.app.service.impl;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserFilter;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.storage.BookRecord;
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.storage.UserRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+@Service
+@Profile(Storage.PROFILE)
+public class StorageUserServiceImpl implements UserService {
+
+    private final Storage storage;
+
+    public StorageUserServiceImpl(Storage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public UserDto createUser(UserDto userDto) {
+        UserRecord savedUser = storage.createUser(userDto.getFullName(), userDto.getTitle(), userDto.getAge());
+        log.info("Saved user: {}", savedUser);
+        return toUserDto(savedUser);
+    }
+
+    @Override
+    public List<UserDto> createUsers(List<UserDto> userDtos) {
+        List<UserDto> savedUsers = userDtos.stream()
+                .map(userDto -> storage.createUser(userDto.getFullName(), userDto.getTitle(), userDto.getAge()))
+                .map(this::toUserDto)
+                .toList();
+        log.info("Saved users: {}", savedUsers.size());
+        return savedUsers;
+    }
+
+    @Override
+    public UserDto updateUser(UserDto userDto) {
+        Optional<UserRecord> updatedUser = storage.updateUser(userDto.getId(),
+                userDto.getFullName(), userDto.getTitle(), userDto.getAge());
+        if (updatedUser.isEmpty()) {
+            log.error("updateUser from StorageUserServiceImpl an error has occurred");
+            return userDto;
+        }
+        log.info("updateUser from StorageUserServiceImpl successfully: {}", updatedUser.get());
+        return toUserDto(updatedUser.get());
+    }
+
+    @Override
+    public UserDto getUserById(Long id) {
+        Optional<UserRecord> userById = storage.findUser(id);
+        if (userById.isEmpty()) {
+            log.error("getUserById from StorageUserServiceImpl an error has occurred");
+            return null;
+        }
+        log.info("getUserById from StorageUserServiceImpl successfully: {}", id);
+        return toUserDto(userById.get());
+    }
+
+    @Override
+    public List<UserDto> getUsersByIds(Collection<Long> ids) {
+        List<UserDto> users = ids.stream()
+                .map(storage::findUser)
+                .flatMap(Optional::stream)
+                .map(this::toUserDto)
+                .toList();
+        log.info("getUsersByIds from StorageUserServiceImpl successfully: requested {}, found {}", ids.size(), users.size());
+        return users;
+    }
+
+    @Override
+    public List<UserDto> getUsersPage(UserFilter filter, long afterId, int limit) {
+        List<UserDto> users = storage.findUsersAfter(user -> filter.matches(user.age(), user.title()), afterId, limit)
+                .stream()
+                .map(this::toUserDto)
+                .toList();
+        log.info("getUsersPage from StorageUserServiceImpl successfully: {}, after {}, size {}", filter, afterId, users.size());
+        return users;
+    }
+
+    @Override
+    public UserWithBooksDto getUserWithBooksById(Long id) {
+        Optional<UserRecord> userById = storage.findUser(id);
+        if (userById.isEmpty()) {
+            log.error("getUserWithBooksById from StorageUserServiceImpl an error has occurred");
+            return null;
+        }
+        UserWithBooksDto userWithBooks = new UserWithBooksDto();
+        userWithBooks.setUser(toUserDto(userById.get()));
+        userWithBooks.setBooks(storage.findBooks(id)
+                .stream()
+                .map(this::toBookDto)
+                .toList());
+        log.info("getUserWithBooksById from StorageUserServiceImpl successfully: {}, books: {}",
+                id, userWithBooks.getBooks().size());
+        return userWithBooks;
+    }
+
+    @Override
+    public void deleteUserById(Long id) {
+        boolean deleted = storage.deleteUser(id);
+        log.info("deleteUserById from StorageUserServiceImpl successfully: {}, deleted: {}", id, deleted);
+    }
+
+    @Override
+    public void addViewCounts(Map<Long, Long> viewsByUserId) {
+        viewsByUserId.forEach(storage::addUserCount);
+        log.info("addViewCounts from StorageUserServiceImpl successfully: {} users", viewsByUserId.size());
+    }
+
+    private UserDto toUserDto(UserRecord user) {
+        UserDto userDto = new UserDto();
+        userDto.setId(user.id());
+        userDto.setFullName(user.fullName());
+        userDto.setTitle(user.title());
+        userDto.setAge(user.age());
+        return userDto;
+    }
+
+    private BookDto toBookDto(BookRecord book) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(book.id());
+        bookDto.setUserId(book.userId());
+        bookDto.setTitle(book.title());
+        bookDto.setAuthor(book.author());
+        bookDto.setPageCount(book.pageCount());
+        return bookDto;
+    }
+}
@@ -1,29 +1,46 @@
 package com.edu.ulab.app.service.impl;
 
+import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserFilter;
+import com.edu.ulab.app.dto.UserWithBooksDto;
 import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.mapper.BookMapper;
 import com.edu.ulab.app.mapper.UserMapper;
 import com.edu.ulab.app.repository.UserRepository;
 import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.storage.Storage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
 @Service
+@Profile("!" + Storage.PROFILE)
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final BookMapper bookMapper;
 
     public UserServiceImpl(UserRepository userRepository,
-                           UserMapper userMapper) {
+                           UserMapper userMapper,
+                           BookMapper bookMapper) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
+        this.bookMapper = bookMapper;
     }
 
     @Override
+    @Transactional
     public UserDto createUser(UserDto userDto) {
         Person user = userMapper.userDtoToPerson(userDto);
         log.info("Mapped user: {}", user);
@@ -33,6 +50,21 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
+    public List<UserDto> createUsers(List<UserDto> userDtos) {
+        List<Person> users = userDtos.stream()
+                .map(userMapper::userDtoToPerson)
+                .toList();
+        log.info("Mapped users: {}", users.size());
+
+        List<UserDto> savedUsers = new ArrayList<>(users.size());
+        userRepository.saveAll(users).forEach(savedUser -> savedUsers.add(userMapper.personToUserDto(savedUser)));
+        log.info("Saved users: {}", savedUsers.size());
+        return savedUsers;
+    }
+
+    @Override
+    @Transactional
     public UserDto updateUser(UserDto userDto) {
         Optional<Person> byIdForUpdate = userRepository.findByIdForUpdate(userDto.getId());
         if (byIdForUpdate.isEmpty()) {
@@ -56,6 +88,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDto getUserById(Long id) {
         Optional<Person> userById = userRepository.findById(id);
         if (userById.isEmpty()) {
@@ -68,8 +101,53 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersByIds(Collection<Long> ids) {
+        List<UserDto> users = new ArrayList<>(ids.size());
+        userRepository.findAllById(ids).forEach(person -> users.add(userMapper.personToUserDto(person)));
+        log.info("getUsersByIds from UserServiceImpl successfully: requested {}, found {}", ids.size(), users.size());
+        return users;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersPage(UserFilter filter, long afterId, int limit) {
+        List<UserDto> users = userRepository.findPage(filter, afterId, limit);
+        log.info("getUsersPage from UserServiceImpl successfully: {}, after {}, size {}", filter, afterId, users.size());
+        return users;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserWithBooksDto getUserWithBooksById(Long id) {
+        Optional<Person> userById = userRepository.findWithBooksById(id);
+        if (userById.isEmpty()) {
+            log.error("getUserWithBooksById from UserServiceImpl an error has occurred");
+            return null;
+        }
+        UserWithBooksDto userWithBooks = new UserWithBooksDto();
+        userWithBooks.setUser(userMapper.personToUserDto(userById.get()));
+        userWithBooks.setBooks(userById.get().getBookSet()
+                .stream()
+                .map(bookMapper::bookToBookDto)
+                .sorted(Comparator.comparing(BookDto::getId))
+                .toList());
+        log.info("getUserWithBooksById from UserServiceImpl successfully: {}, books: {}",
+                id, userWithBooks.getBooks().size());
+        return userWithBooks;
+    }
+
+    @Override
+    @Transactional
     public void deleteUserById(Long id) {
-        userRepository.deleteById(id);
-        log.info("deleteUserById from UserServiceImpl successfully: {}", id);
+        int deleted = userRepository.deleteByIdInBulk(id);
+        log.info("deleteUserById from UserServiceImpl successfully: {}, rows: {}", id, deleted);
+    }
+
+    @Override
+    @Transactional
+    public void addViewCounts(Map<Long, Long> viewsByUserId) {
+        userRepository.incrementCounts(viewsByUserId);
+        log.info("addViewCounts from UserServiceImpl successfully: {} users", viewsByUserId.size());
     }
 }
@@ -0,0 +1,11 @@
+package com.edu.ulab.app.storage;
+
+/**
+ * Неизменяемая запись книги в {@link Storage}.
+ */
+public record BookRecord(long id, long userId, String title, String author, long pageCount) {
+
+    BookRecord withData(String title, String author, long pageCount) {
+        return new BookRecord(id, userId, title, author, pageCount);
+    }
+}
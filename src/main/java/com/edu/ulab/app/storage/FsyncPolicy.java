@@ -0,0 +1,19 @@
+package com.edu.ulab.app.storage;
+
+/**
+ * Когда журнал {@link Storage} сбрасывается на диск.
+ */
+public enum FsyncPolicy {
+    /**
+     * fsync после каждой записи, под блокировкой журнала.
+     */
+    ALWAYS,
+    /**
+     * Групповой коммит: писатель ждёт fsync, один сброс на диск подтверждает все записи, накопленные к этому моменту.
+     */
+    GROUP,
+    /**
+     * Сброс на диск оставлен ОС; данные последних операций могут потеряться при падении машины, но не процесса.
+     */
+    NONE
+}
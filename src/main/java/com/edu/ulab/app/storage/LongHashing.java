@@ -0,0 +1,29 @@
+package com.edu.ulab.app.storage;
+
+final class LongHashing {
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private LongHashing() {
+    }
+
+    static int mix(long key) {
+        long hash = key * GOLDEN_RATIO;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Размер таблицы - степень двойки, при которой {@code expectedSize} элементов не превышают коэффициент заполнения 0.5.
+     */
+    static int tableSize(int expectedSize) {
+        long required = Math.max(2L, (long) expectedSize * 2);
+        if (required >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    static int resizeThreshold(int capacity) {
+        return capacity >>> 1;
+    }
+}
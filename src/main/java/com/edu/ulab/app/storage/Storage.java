@@ -1,11 +1,576 @@
 package com.edu.ulab.app.storage;
 
-public class Storage {
-    //todo создать хранилище в котором будут содержаться данные
-    // сделать абстракции через которые можно будет производить операции с хранилищем
-    // продумать логику поиска и сохранения
-    // продумать возможные ошибки
-    // учесть, что при сохранеии юзера или книги, должен генерироваться идентификатор
-    // продумать что у узера может быть много книг и нужно создать эту связь
-    // так же учесть, что методы хранилища принимают друго тип данных - учесть это в абстракции
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.storage.StorageOperation.DeleteBook;
+import com.edu.ulab.app.storage.StorageOperation.DeleteBooks;
+import com.edu.ulab.app.storage.StorageOperation.DeleteUser;
+import com.edu.ulab.app.storage.StorageOperation.PutBook;
+import com.edu.ulab.app.storage.StorageOperation.PutUser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Хранилище пользователей и книг в памяти, используется сервисами в профиле {@value #PROFILE}.
+ * <p>
+ * Данные разбиты на {@value #SEGMENT_COUNT} сегментов, у каждого свой {@link ReentrantReadWriteLock}.
+ * Номер сегмента зашит в младшие биты идентификатора, а книги получают сегмент своего пользователя,
+ * поэтому любая операция, в том числе каскадное удаление книг пользователя, берёт ровно одну блокировку.
+ * <p>
+ * Хранилище, открытое через {@link #open}, переживает перезапуск: каждая операция сначала дописывается
+ * в {@link StorageJournal}, {@link #snapshot()} сохраняет сжатый снимок и удаляет вошедшие в него файлы журнала,
+ * а при открытии загружается последний снимок и проигрывается хвост журнала.
+ */
+@Slf4j
+public class Storage implements Closeable {
+    public static final String PROFILE = "storage";
+
+    static final int SEGMENT_BITS = 6;
+    static final int SEGMENT_COUNT = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_COUNT - 1;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object snapshotLock = new Object();
+    private final Path directory;
+    private final StorageJournal journal;
+
+    /**
+     * Хранилище только в памяти, без журнала.
+     */
+    public Storage() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+        this.directory = null;
+        this.journal = null;
+    }
+
+    private Storage(Path directory, FsyncPolicy fsyncPolicy, int journalFileSize) throws IOException {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+        this.directory = directory;
+        long snapshotLsn = loadSnapshot();
+        this.journal = StorageJournal.open(directory, fsyncPolicy, journalFileSize, snapshotLsn, this::replay);
+    }
+
+    /**
+     * Открывает хранилище в каталоге {@code directory}, восстанавливая данные из снимка и журнала.
+     */
+    public static Storage open(Path directory, FsyncPolicy fsyncPolicy, int journalFileSize) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        Storage storage = new Storage(directory, fsyncPolicy, journalFileSize);
+        log.info("Recovered storage from {} in {} ms: {} users, {} books", directory,
+                (System.nanoTime() - start) / 1_000_000, storage.userCount(), storage.bookCount());
+        return storage;
+    }
+
+    public UserRecord createUser(String fullName, String title, int age) {
+        long sequenceValue = sequence.incrementAndGet();
+        int segmentIndex = (int) (sequenceValue & SEGMENT_MASK);
+        UserRecord user = new UserRecord(idOf(sequenceValue, segmentIndex), fullName, title, age, 0);
+        Segment segment = segments[segmentIndex];
+        long lsn;
+        segment.writeLock.lock();
+        try {
+            lsn = append(segment, new PutUser(user));
+            putUser(segment, user);
+        } finally {
+            segment.writeLock.unlock();
+        }
+        sync(lsn);
+        return user;
+    }
+
+    public Optional<UserRecord> findUser(long id) {
+        Segment segment = segmentOf(id);
+        segment.readLock.lock();
+        try {
+            return Optional.ofNullable(segment.users.get(id));
+        } finally {
+            segment.readLock.unlock();
+        }
+    }
+
+    /**
+     * До {@code limit} пользователей с {@code id > afterId}, подходящих под {@code filter}, по возрастанию id.
+     * Порядка по id между сегментами нет, поэтому страница - это полный просмотр с отбором
+     * {@code limit} наименьших id: O(n log limit) от числа пользователей.
+     */
+    public List<UserRecord> findUsersAfter(Predicate<UserRecord> filter, long afterId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<UserRecord> smallest = new PriorityQueue<>(Comparator.comparingLong(UserRecord::id).reversed());
+        for (Segment segment : segments) {
+            segment.readLock.lock();
+            try {
+                segment.users.forEach((id, user) -> {
+                    if (id <= afterId || (smallest.size() == limit && id >= smallest.peek().id()) || !filter.test(user)) {
+                        return;
+                    }
+                    smallest.add(user);
+                    if (smallest.size() > limit) {
+                        smallest.poll();
+                    }
+                });
+            } finally {
+                segment.readLock.unlock();
+            }
+        }
+        List<UserRecord> users = new ArrayList<>(smallest);
+        users.sort(Comparator.comparingLong(UserRecord::id));
+        return users;
+    }
+
+    public Optional<UserRecord> updateUser(long id, String fullName, String title, int age) {
+        Segment segment = segmentOf(id);
+        UserRecord updated;
+        long lsn;
+        segment.writeLock.lock();
+        try {
+            UserRecord user = segment.users.get(id);
+            if (user == null) {
+                return Optional.empty();
+            }
+            updated = user.withData(fullName, title, age);
+            lsn = append(segment, new PutUser(updated));
+            putUser(segment, updated);
+        } finally {
+            segment.writeLock.unlock();
+        }
+        sync(lsn);
+        return Optional.of(updated);
+    }
+
+    public boolean addUserCount(long id, long delta) {
+        Segment segment = segmentOf(id);
+        long lsn;
+        segment.writeLock.lock();
+        try {
+            UserRecord user = segment.users.get(id);
+            if (user == null) {
+                return false;
+            }
+            UserRecord updated = user.withCount(user.count() + delta);
+            lsn = append(segment, new PutUser(updated));
+            putUser(segment, updated);
+        } finally {
+            segment.writeLock.unlock();
+        }
+        sync(lsn);
+        return true;
+    }
+
+    /**
+     * Удаляет пользователя вместе с его книгами.
+     *
+     * @return false, если пользователя не было
+     */
+    public boolean deleteUser(long id) {
+        Segment segment = segmentOf(id);
+        long lsn;
+        segment.writeLock.lock();
+        try {
+            if (!segment.users.containsKey(id)) {
+                return false;
+            }
+            lsn = append(segment, new DeleteUser(id));
+            deleteUser(segment, id);
+        } finally {
+            segment.writeLock.unlock();
+        }
+        sync(lsn);
+        return true;
+    }
+
+    /**
+     * @throws NotFoundException если пользователя с {@code userId} нет
+     */
+    public BookRecord createBook(long userId, String title, String author, long pageCount) {
+        Segment segment = segmentOf(userId);
+        int segmentIndex = (int) (userId & SEGMENT_MASK);
+        BookRecord book;
+        long lsn;
+        segment.writeLock.lock();
+        try {
+            if (!segment.users.containsKey(userId)) {
+                throw new NotFoundException("User not found: " + userId);
+            }
+            book = new BookRecord(idOf(sequence.incrementAndGet(), segmentIndex), userId, title, author, pageCount);
+            lsn = append(segment, new PutBook(book));
+            putBook(segment, book);
+        } finally {
+            segment.writeLock.unlock();
+        }
+        sync(lsn);
+        return book;
+    }
+
+    public Optional<BookRecord> findBook(long id) {
+        Segment segment = segmentOf(id);
+        segment.readLock.lock();
+        try {
+            return Optional.ofNullable(segment.books.get(id));
+        } finally {
+            segment.readLock.unlock();
+        }
+    }
+
+    public Optional<BookRecord> updateBook(long id, String title, String author, long pageCount) {
+        Segment segment = segmentOf(id);
+        BookRecord updated;
+        long lsn;
+        segment.writeLock.lock();
+        try {
+            BookRecord book = segment.books.get(id);
+            if (book == null) {
+                return Optional.empty();
+            }
+            updated = book.withData(title, author, pageCount);
+            lsn = append(segment, new PutBook(updated));
+            putBook(segment, updated);
+        } finally {
+            segment.writeLock.unlock();
+        }
+        sync(lsn);
+        return Optional.of(updated);
+    }
+
+    public boolean deleteBook(long id) {
+        Segment segment = segmentOf(id);
+        long lsn;
+        segment.writeLock.lock();
+        try {
+            if (!segment.books.containsKey(id)) {
+                return false;
+            }
+            lsn = append(segment, new DeleteBook(id));
+            deleteBook(segment, id);
+        } finally {
+            segment.writeLock.unlock();
+        }
+        sync(lsn);
+        return true;
+    }
+
+    /**
+     * Идентификаторы книг пользователя по возрастанию; пустой массив, если пользователя или книг нет.
+     */
+    public long[] findBookIds(long userId) {
+        Segment segment = segmentOf(userId);
+        long[] bookIds;
+        segment.readLock.lock();
+        try {
+            LongHashSet ids = segment.bookIdsByUser.get(userId);
+            if (ids == null) {
+                return new long[0];
+            }
+            bookIds = ids.toArray();
+        } finally {
+            segment.readLock.unlock();
+        }
+        Arrays.sort(bookIds);
+        return bookIds;
+    }
+
+    /**
+     * Книги пользователя по возрастанию id, прочитанные под одной блокировкой сегмента.
+     */
+    public List<BookRecord> findBooks(long userId) {
+        Segment segment = segmentOf(userId);
+        List<BookRecord> books = new ArrayList<>();
+        segment.readLock.lock();
+        try {
+            LongHashSet ids = segment.bookIdsByUser.get(userId);
+            if (ids != null) {
+                ids.forEach(bookId -> books.add(segment.books.get(bookId)));
+            }
+        } finally {
+            segment.readLock.unlock();
+        }
+        books.sort(Comparator.comparingLong(BookRecord::id));
+        return books;
+    }
+
+    /**
+     * До {@code limit} книг пользователя с {@code id > afterId} по возрастанию id.
+     * Книги пользователя хранятся в хэш-множестве без порядка, поэтому страница стоит O(n log n)
+     * от числа его книг, а не от глубины страницы.
+     */
+    public List<BookRecord> findBooksAfter(long userId, long afterId, int limit) {
+        Segment segment = segmentOf(userId);
+        long[] bookIds;
+        segment.readLock.lock();
+        try {
+            LongHashSet ids = segment.bookIdsByUser.get(userId);
+            if (ids == null) {
+                return List.of();
+            }
+            bookIds = ids.toArray();
+        } finally {
+            segment.readLock.unlock();
+        }
+        int candidates = 0;
+        for (long bookId : bookIds) {
+            if (bookId > afterId) {
+                bookIds[candidates++] = bookId;
+            }
+        }
+        Arrays.sort(bookIds, 0, candidates);
+        List<BookRecord> books = new ArrayList<>(Math.min(limit, candidates));
+        for (int i = 0; i < candidates && books.size() < limit; i++) {
+            findBook(bookIds[i]).ifPresent(books::add);
+        }
+        return books;
+    }
+
+    /**
+     * @return число удалённых книг
+     */
+    public int deleteBooks(long userId) {
+        Segment segment = segmentOf(userId);
+        int removed;
+        long lsn;
+        segment.writeLock.lock();
+        try {
+            LongHashSet bookIds = segment.bookIdsByUser.get(userId);
+            if (bookIds == null || bookIds.isEmpty()) {
+                return 0;
+            }
+            lsn = append(segment, new DeleteBooks(userId));
+            removed = deleteBooks(segment, userId);
+        } finally {
+            segment.writeLock.unlock();
+        }
+        sync(lsn);
+        return removed;
+    }
+
+    public int userCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            segment.readLock.lock();
+            try {
+                count += segment.users.size();
+            } finally {
+                segment.readLock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Обход всех книг посегментно: сегмент копируется под блокировкой чтения,
+     * {@code action} вызывается уже без неё. Согласованного среза между сегментами нет.
+     */
+    public void forEachBook(Consumer<BookRecord> action) {
+        for (Segment segment : segments) {
+            List<BookRecord> books = new ArrayList<>();
+            segment.readLock.lock();
+            try {
+                segment.books.forEach((bookId, book) -> books.add(book));
+            } finally {
+                segment.readLock.unlock();
+            }
+            books.forEach(action);
+        }
+    }
+
+    public int bookCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            segment.readLock.lock();
+            try {
+                count += segment.books.size();
+            } finally {
+                segment.readLock.unlock();
+            }
+        }
+        return count;
+    }
+
+    public boolean isPersistent() {
+        return journal != null;
+    }
+
+    /**
+     * Сохраняет снимок хранилища и удаляет файлы журнала, которые в него вошли.
+     * Сегменты копируются по одному под блокировкой чтения, запись в остальные сегменты не останавливается.
+     */
+    public void snapshot() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            long lsn = journal.roll();
+            Path file = StorageSnapshot.write(directory, new StorageSnapshot.Header(lsn, sequence.get()),
+                    SEGMENT_COUNT, this::imageOf);
+            StorageSnapshot.deleteOlderThan(directory, file);
+            journal.deleteUpTo(lsn);
+            log.info("Saved storage snapshot {}", file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private long append(Segment segment, StorageOperation operation) {
+        if (journal == null) {
+            return 0;
+        }
+        long lsn = journal.append(operation);
+        segment.lastLsn = lsn;
+        return lsn;
+    }
+
+    private void sync(long lsn) {
+        if (journal != null) {
+            journal.sync(lsn);
+        }
+    }
+
+    private long loadSnapshot() throws IOException {
+        Optional<Path> latest = StorageSnapshot.latest(directory);
+        if (latest.isEmpty()) {
+            return 0;
+        }
+        StorageSnapshot.Header header = StorageSnapshot.read(latest.get(), SEGMENT_COUNT, (image, index) -> {
+            Segment segment = segments[index];
+            segment.lastLsn = image.lsn();
+            image.users().forEach(user -> {
+                putUser(segment, user);
+                sequence.accumulateAndGet(user.id() >>> SEGMENT_BITS, Math::max);
+            });
+            image.books().forEach(book -> {
+                putBook(segment, book);
+                sequence.accumulateAndGet(book.id() >>> SEGMENT_BITS, Math::max);
+            });
+        });
+        sequence.accumulateAndGet(header.sequence(), Math::max);
+        return header.lsn();
+    }
+
+    private void replay(StorageJournal.Entry entry) {
+        StorageOperation operation = entry.operation();
+        Segment segment = segmentOf(operation.key());
+        sequence.accumulateAndGet(operation.key() >>> SEGMENT_BITS, Math::max);
+        if (entry.lsn() <= segment.lastLsn) {
+            return;
+        }
+        if (operation instanceof PutUser putUser) {
+            putUser(segment, putUser.user());
+        } else if (operation instanceof DeleteUser deleteUser) {
+            deleteUser(segment, deleteUser.userId());
+        } else if (operation instanceof PutBook putBook) {
+            putBook(segment, putBook.book());
+        } else if (operation instanceof DeleteBook deleteBook) {
+            deleteBook(segment, deleteBook.bookId());
+        } else if (operation instanceof DeleteBooks deleteBooks) {
+            deleteBooks(segment, deleteBooks.userId());
+        }
+        segment.lastLsn = entry.lsn();
+    }
+
+    private StorageSnapshot.SegmentImage imageOf(int index) {
+        Segment segment = segments[index];
+        segment.readLock.lock();
+        try {
+            List<UserRecord> users = new ArrayList<>(segment.users.size());
+            List<BookRecord> books = new ArrayList<>(segment.books.size());
+            segment.users.forEach((id, user) -> users.add(user));
+            segment.books.forEach((id, book) -> books.add(book));
+            return new StorageSnapshot.SegmentImage(segment.lastLsn, users, books);
+        } finally {
+            segment.readLock.unlock();
+        }
+    }
+
+    private void putUser(Segment segment, UserRecord user) {
+        segment.users.put(user.id(), user);
+        if (!segment.bookIdsByUser.containsKey(user.id())) {
+            segment.bookIdsByUser.put(user.id(), new LongHashSet());
+        }
+    }
+
+    private void deleteUser(Segment segment, long userId) {
+        segment.users.remove(userId);
+        deleteBooks(segment, userId);
+        segment.bookIdsByUser.remove(userId);
+    }
+
+    private void putBook(Segment segment, BookRecord book) {
+        segment.books.put(book.id(), book);
+        LongHashSet bookIds = segment.bookIdsByUser.get(book.userId());
+        if (bookIds == null) {
+            bookIds = new LongHashSet();
+            segment.bookIdsByUser.put(book.userId(), bookIds);
+        }
+        bookIds.add(book.id());
+    }
+
+    private void deleteBook(Segment segment, long bookId) {
+        BookRecord book = segment.books.remove(bookId);
+        if (book == null) {
+            return;
+        }
+        LongHashSet bookIds = segment.bookIdsByUser.get(book.userId());
+        if (bookIds != null) {
+            bookIds.remove(bookId);
+        }
+    }
+
+    private static int deleteBooks(Segment segment, long userId) {
+        LongHashSet bookIds = segment.bookIdsByUser.get(userId);
+        if (bookIds == null || bookIds.isEmpty()) {
+            return 0;
+        }
+        int removed = bookIds.size();
+        bookIds.forEach(segment.books::remove);
+        segment.bookIdsByUser.put(userId, new LongHashSet());
+        return removed;
+    }
+
+    private Segment segmentOf(long id) {
+        return segments[(int) (id & SEGMENT_MASK)];
+    }
+
+    private static long idOf(long sequenceValue, int segmentIndex) {
+        return (sequenceValue << SEGMENT_BITS) | segmentIndex;
+    }
+
+    private static final class Segment {
+        final LongObjectHashMap<UserRecord> users = new LongObjectHashMap<>();
+        final LongObjectHashMap<BookRecord> books = new LongObjectHashMap<>();
+        final LongObjectHashMap<LongHashSet> bookIdsByUser = new LongObjectHashMap<>();
+        final Lock readLock;
+        final Lock writeLock;
+        long lastLsn;
+
+        Segment() {
+            ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+            this.readLock = lock.readLock();
+            this.writeLock = lock.writeLock();
+        }
+    }
 }
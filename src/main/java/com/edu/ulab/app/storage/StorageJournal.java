@@ -0,0 +1,329 @@
+package com.edu.ulab.app.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал операций {@link Storage}: файлы фиксированного размера, отображённые в память, только на дозапись.
+ * <p>
+ * Формат записи: {@code [int длина тела][int crc32c тела][long lsn][byte тип][данные операции]}.
+ * Нулевая длина означает конец записанной части файла. LSN идут подряд без пропусков,
+ * поэтому оборванная при падении запись обнаруживается по CRC или по разрыву в LSN.
+ */
+@Slf4j
+final class StorageJournal implements Closeable {
+    private static final String FILE_PREFIX = "journal-";
+    private static final String FILE_SUFFIX = ".log";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int BODY_PREFIX_SIZE = Long.BYTES + Byte.BYTES;
+    private static final int INITIAL_SCRATCH_SIZE = 4096;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final int segmentSize;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final CRC32C crc = new CRC32C();
+
+    private ByteBuffer scratch = ByteBuffer.allocate(INITIAL_SCRATCH_SIZE);
+    private JournalFile current;
+    private long lastLsn;
+    private volatile long durableLsn;
+
+    private StorageJournal(Path directory, FsyncPolicy fsyncPolicy, int segmentSize) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Проигрывает все записи журнала с LSN больше {@code afterLsn} и открывает журнал на дозапись.
+     *
+     * @throws IllegalStateException если повреждён не последний файл журнала
+     */
+    static StorageJournal open(Path directory, FsyncPolicy fsyncPolicy, int segmentSize, long afterLsn,
+                               Consumer<Entry> replay) throws IOException {
+        StorageJournal journal = new StorageJournal(directory, fsyncPolicy, segmentSize);
+        List<Path> files = listFiles(directory);
+        long expectedLsn = -1;
+        for (int i = 0; i < files.size(); i++) {
+            boolean last = i == files.size() - 1;
+            JournalFile file = JournalFile.open(files.get(i));
+            long requiredLsn = expectedLsn >= 0 ? expectedLsn : afterLsn + 1;
+            if (expectedLsn >= 0 ? file.firstLsn != requiredLsn : file.firstLsn > requiredLsn) {
+                file.close();
+                throw new IllegalStateException("Gap in storage journal before " + files.get(i));
+            }
+            expectedLsn = journal.replay(file, afterLsn, replay, last);
+            if (last) {
+                journal.current = file;
+            } else {
+                file.close();
+            }
+        }
+        journal.lastLsn = Math.max(afterLsn, expectedLsn - 1);
+        if (journal.current == null) {
+            journal.current = journal.createFile(journal.lastLsn + 1);
+        }
+        journal.durableLsn = journal.lastLsn;
+        log.info("Opened storage journal in {}: {} files, last lsn {}", directory, files.size(), journal.lastLsn);
+        return journal;
+    }
+
+    /**
+     * Дописывает операцию в журнал. Вызывается под блокировкой сегмента хранилища,
+     * поэтому порядок записей в журнале совпадает с порядком применения операций к сегменту.
+     *
+     * @return LSN записи
+     */
+    long append(StorageOperation operation) {
+        synchronized (appendLock) {
+            long lsn = lastLsn + 1;
+            ByteBuffer body = encode(lsn, operation);
+            int recordSize = HEADER_SIZE + body.remaining();
+            if (recordSize + HEADER_SIZE > current.buffer.capacity()) {
+                throw new IllegalArgumentException("Storage journal record is larger than a journal file: " + recordSize);
+            }
+            if (current.buffer.remaining() < recordSize + HEADER_SIZE) {
+                roll(lsn);
+            }
+            crc.reset();
+            crc.update(body.duplicate());
+            current.buffer.putInt(body.remaining());
+            current.buffer.putInt((int) crc.getValue());
+            current.buffer.put(body);
+            lastLsn = lsn;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                current.force();
+                durableLsn = lsn;
+            }
+            return lsn;
+        }
+    }
+
+    /**
+     * Ждёт, пока запись с {@code lsn} окажется на диске. Пока один поток делает fsync, остальные ждут на мониторе
+     * и затем обычно обнаруживают, что их записи уже подтверждены тем же сбросом.
+     */
+    void sync(long lsn) {
+        if (fsyncPolicy != FsyncPolicy.GROUP || durableLsn >= lsn) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableLsn >= lsn) {
+                return;
+            }
+            JournalFile file;
+            long target;
+            synchronized (appendLock) {
+                file = current;
+                target = lastLsn;
+            }
+            file.force();
+            durableLsn = Math.max(durableLsn, target);
+        }
+    }
+
+    /**
+     * Начинает новый файл журнала. Все записи с LSN не больше возвращённого лежат в предыдущих файлах.
+     */
+    long roll() {
+        synchronized (appendLock) {
+            roll(lastLsn + 1);
+            return lastLsn;
+        }
+    }
+
+    long lastLsn() {
+        synchronized (appendLock) {
+            return lastLsn;
+        }
+    }
+
+    /**
+     * Удаляет файлы журнала, все записи которых не новее {@code lsn} и уже вошли в снимок.
+     */
+    void deleteUpTo(long lsn) throws IOException {
+        List<Path> files = listFiles(directory);
+        for (int i = 0; i < files.size() - 1; i++) {
+            if (firstLsnOf(files.get(i + 1)) <= lsn + 1) {
+                Files.deleteIfExists(files.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            current.force();
+            durableLsn = lastLsn;
+            current.close();
+        }
+    }
+
+    private void roll(long nextLsn) {
+        if (current.firstLsn == nextLsn && current.buffer.position() == 0) {
+            return;
+        }
+        try {
+            if (fsyncPolicy != FsyncPolicy.NONE) {
+                current.force();
+            }
+            current.close();
+            current = createFile(nextLsn);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll storage journal", e);
+        }
+    }
+
+    private ByteBuffer encode(long lsn, StorageOperation operation) {
+        while (true) {
+            try {
+                scratch.clear();
+                scratch.putLong(lsn);
+                scratch.put(operation.type());
+                operation.encode(scratch);
+                return scratch.flip();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private long replay(JournalFile file, long afterLsn, Consumer<Entry> replay, boolean last) throws IOException {
+        ByteBuffer buffer = file.buffer;
+        long expectedLsn = file.firstLsn;
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                buffer.position(start);
+                return expectedLsn;
+            }
+            Entry entry = readEntry(buffer, length, expectedLsn);
+            if (entry == null) {
+                if (!last) {
+                    throw new IllegalStateException("Storage journal is corrupted at " + file.path + ":" + start);
+                }
+                log.warn("Discarding torn storage journal tail at {}:{}", file.path, start);
+                buffer.position(start);
+                file.zeroTail();
+                return expectedLsn;
+            }
+            if (entry.lsn() > afterLsn) {
+                replay.accept(entry);
+            }
+            expectedLsn++;
+        }
+        return expectedLsn;
+    }
+
+    private Entry readEntry(ByteBuffer buffer, int length, long expectedLsn) {
+        if (length < BODY_PREFIX_SIZE || length > buffer.remaining() - Integer.BYTES) {
+            return null;
+        }
+        int checksum = buffer.getInt();
+        ByteBuffer body = buffer.slice(buffer.position(), length);
+        crc.reset();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        long lsn = body.getLong();
+        if (lsn != expectedLsn) {
+            return null;
+        }
+        try {
+            StorageOperation operation = StorageOperation.decode(body.get(), body);
+            buffer.position(buffer.position() + length);
+            return new Entry(lsn, operation);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private JournalFile createFile(long firstLsn) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, firstLsn, FILE_SUFFIX));
+        return JournalFile.create(path, firstLsn, segmentSize);
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(StorageJournal::isJournalFile)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static boolean isJournalFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+
+    private static long firstLsnOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    record Entry(long lsn, StorageOperation operation) {
+    }
+
+    private static final class JournalFile {
+        final Path path;
+        final long firstLsn;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        private JournalFile(Path path, long firstLsn, FileChannel channel) throws IOException {
+            this.path = path;
+            this.firstLsn = firstLsn;
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+
+        static JournalFile open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new JournalFile(path, firstLsnOf(path), channel);
+        }
+
+        static JournalFile create(Path path, long firstLsn, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1L);
+            return new JournalFile(path, firstLsn, channel);
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void zeroTail() {
+            int position = buffer.position();
+            while (buffer.hasRemaining()) {
+                buffer.put((byte) 0);
+            }
+            buffer.position(position);
+            buffer.force();
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
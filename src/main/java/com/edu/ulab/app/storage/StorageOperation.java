@@ -0,0 +1,155 @@
+package com.edu.ulab.app.storage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Операция над {@link Storage}, записываемая в журнал.
+ * Все операции несут полное новое состояние записи, поэтому повторное применение при восстановлении безопасно.
+ */
+sealed interface StorageOperation {
+    byte PUT_USER = 1;
+    byte DELETE_USER = 2;
+    byte PUT_BOOK = 3;
+    byte DELETE_BOOK = 4;
+    byte DELETE_BOOKS = 5;
+
+    /**
+     * Идентификатор, по которому определяется сегмент хранилища.
+     */
+    long key();
+
+    byte type();
+
+    void encode(ByteBuffer buffer);
+
+    static StorageOperation decode(byte type, ByteBuffer buffer) {
+        return switch (type) {
+            case PUT_USER -> new PutUser(new UserRecord(buffer.getLong(), getString(buffer), getString(buffer),
+                    buffer.getInt(), buffer.getLong()));
+            case DELETE_USER -> new DeleteUser(buffer.getLong());
+            case PUT_BOOK -> new PutBook(new BookRecord(buffer.getLong(), buffer.getLong(), getString(buffer),
+                    getString(buffer), buffer.getLong()));
+            case DELETE_BOOK -> new DeleteBook(buffer.getLong());
+            case DELETE_BOOKS -> new DeleteBooks(buffer.getLong());
+            default -> throw new IllegalArgumentException("Unknown storage operation type: " + type);
+        };
+    }
+
+    record PutUser(UserRecord user) implements StorageOperation {
+        @Override
+        public long key() {
+            return user.id();
+        }
+
+        @Override
+        public byte type() {
+            return PUT_USER;
+        }
+
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.putLong(user.id());
+            putString(buffer, user.fullName());
+            putString(buffer, user.title());
+            buffer.putInt(user.age());
+            buffer.putLong(user.count());
+        }
+    }
+
+    record DeleteUser(long userId) implements StorageOperation {
+        @Override
+        public long key() {
+            return userId;
+        }
+
+        @Override
+        public byte type() {
+            return DELETE_USER;
+        }
+
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.putLong(userId);
+        }
+    }
+
+    record PutBook(BookRecord book) implements StorageOperation {
+        @Override
+        public long key() {
+            return book.id();
+        }
+
+        @Override
+        public byte type() {
+            return PUT_BOOK;
+        }
+
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.putLong(book.id());
+            buffer.putLong(book.userId());
+            putString(buffer, book.title());
+            putString(buffer, book.author());
+            buffer.putLong(book.pageCount());
+        }
+    }
+
+    record DeleteBook(long bookId) implements StorageOperation {
+        @Override
+        public long key() {
+            return bookId;
+        }
+
+        @Override
+        public byte type() {
+            return DELETE_BOOK;
+        }
+
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.putLong(bookId);
+        }
+    }
+
+    record DeleteBooks(long userId) implements StorageOperation {
+        @Override
+        public long key() {
+            return userId;
+        }
+
+        @Override
+        public byte type() {
+            return DELETE_BOOKS;
+        }
+
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.putLong(userId);
+        }
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+package com.edu.ulab.app.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Снимок {@link Storage}: все сегменты с LSN последней применённой к каждому операции.
+ * Пишется во временный файл и атомарно переименовывается, целостность проверяется CRC32C в конце файла.
+ */
+final class StorageSnapshot {
+    private static final String FILE_PREFIX = "snapshot-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x554C5353;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private StorageSnapshot() {
+    }
+
+    record Header(long lsn, long sequence) {
+    }
+
+    record SegmentImage(long lsn, List<UserRecord> users, List<BookRecord> books) {
+    }
+
+    static Path write(Path directory, Header header, int segmentCount,
+                      IntFunction<SegmentImage> segments) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, header.lsn(), FILE_SUFFIX));
+        Path tempFile = directory.resolve(file.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32C());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(segmentCount);
+            out.writeLong(header.lsn());
+            out.writeLong(header.sequence());
+            for (int i = 0; i < segmentCount; i++) {
+                writeSegment(out, segments.apply(i));
+            }
+            out.flush();
+            long checksum = checked.getChecksum().getValue();
+            out.writeLong(checksum);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(directory);
+        return file;
+    }
+
+    /**
+     * Читает снимок, передавая каждый сегмент в {@code segments} вместе с его номером.
+     *
+     * @throws IllegalStateException если снимок повреждён или записан с другим числом сегментов
+     */
+    static Header read(Path file, int segmentCount, ObjIntConsumer<SegmentImage> segments) throws IOException {
+        try (InputStream raw = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(raw, BUFFER_SIZE), new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalStateException("Not a storage snapshot: " + file);
+            }
+            if (in.readInt() != segmentCount) {
+                throw new IllegalStateException("Storage snapshot has a different segment count: " + file);
+            }
+            Header header = new Header(in.readLong(), in.readLong());
+            for (int i = 0; i < segmentCount; i++) {
+                segments.accept(readSegment(in), i);
+            }
+            long checksum = checked.getChecksum().getValue();
+            if (in.readLong() != checksum) {
+                throw new IllegalStateException("Storage snapshot checksum mismatch: " + file);
+            }
+            return header;
+        }
+    }
+
+    static Optional<Path> latest(Path directory) throws IOException {
+        List<Path> snapshots = list(directory);
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    static void deleteOlderThan(Path directory, Path keep) throws IOException {
+        for (Path snapshot : list(directory)) {
+            if (snapshot.compareTo(keep) < 0) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void writeSegment(DataOutputStream out, SegmentImage segment) throws IOException {
+        out.writeLong(segment.lsn());
+        out.writeInt(segment.users().size());
+        for (UserRecord user : segment.users()) {
+            out.writeLong(user.id());
+            writeString(out, user.fullName());
+            writeString(out, user.title());
+            out.writeInt(user.age());
+            out.writeLong(user.count());
+        }
+        out.writeInt(segment.books().size());
+        for (BookRecord book : segment.books()) {
+            out.writeLong(book.id());
+            out.writeLong(book.userId());
+            writeString(out, book.title());
+            writeString(out, book.author());
+            out.writeLong(book.pageCount());
+        }
+    }
+
+    private static SegmentImage readSegment(DataInputStream in) throws IOException {
+        long lsn = in.readLong();
+        int userCount = in.readInt();
+        List<UserRecord> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new UserRecord(in.readLong(), readString(in), readString(in), in.readInt(), in.readLong()));
+        }
+        int bookCount = in.readInt();
+        List<BookRecord> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            books.add(new BookRecord(in.readLong(), in.readLong(), readString(in), readString(in), in.readLong()));
+        }
+        return new SegmentImage(lsn, users, books);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // не все файловые системы позволяют fsync каталога
+        }
+    }
+}
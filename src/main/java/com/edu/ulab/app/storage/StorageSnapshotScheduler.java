@@ -0,0 +1,48 @@
+package com.edu.ulab.app.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически сохраняет снимок {@link Storage}, чтобы журнал не рос без ограничений
+ * и восстановление после перезапуска проигрывало только короткий хвост.
+ */
+@Slf4j
+@Component
+@Profile(Storage.PROFILE)
+public class StorageSnapshotScheduler {
+    private final Storage storage;
+    private final Timer snapshotTimer;
+    private final Counter failedSnapshots;
+
+    public StorageSnapshotScheduler(Storage storage,
+                                    MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.snapshotTimer = meterRegistry.timer("storage.snapshot");
+        this.failedSnapshots = meterRegistry.counter("storage.snapshot.failures");
+    }
+
+    @Scheduled(fixedDelayString = "${storage.snapshot-interval:PT10M}",
+            initialDelayString = "${storage.snapshot-interval:PT10M}")
+    public void snapshot() {
+        if (!storage.isPersistent()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            storage.snapshot();
+            snapshotTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (IOException | RuntimeException e) {
+            failedSnapshots.increment();
+            log.error("Failed to save storage snapshot, journal is kept: {}", e.getMessage(), e);
+        }
+    }
+}
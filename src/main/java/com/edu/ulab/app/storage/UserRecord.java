@@ -0,0 +1,15 @@
+package com.edu.ulab.app.storage;
+
+/**
+ * Неизменяемая запись пользователя в {@link Storage}.
+ */
+public record UserRecord(long id, String fullName, String title, int age, long count) {
+
+    UserRecord withData(String fullName, String title, int age) {
+        return new UserRecord(id, fullName, title, age, count);
+    }
+
+    UserRecord withCount(long count) {
+        return new UserRecord(id, fullName, title, age, count);
+    }
+}
@@ -0,0 +1,31 @@
+package com.edu.ulab.app.transaction;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * {@link JpaTransactionManager}, который сообщает о коммитах и откатах в {@link TransactionMetrics}.
+ */
+public class MeteredJpaTransactionManager extends JpaTransactionManager {
+    private final TransactionMetrics transactionMetrics;
+
+    public MeteredJpaTransactionManager(EntityManagerFactory entityManagerFactory,
+                                        TransactionMetrics transactionMetrics) {
+        super(entityManagerFactory);
+        this.transactionMetrics = transactionMetrics;
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        super.doCommit(status);
+        transactionMetrics.onCommit(status.isReadOnly());
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        super.doRollback(status);
+        transactionMetrics.onRollback();
+    }
+}
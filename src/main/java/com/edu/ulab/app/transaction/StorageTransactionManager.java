@@ -0,0 +1,38 @@
+package com.edu.ulab.app.transaction;
+
+import com.edu.ulab.app.storage.Storage;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Менеджер транзакций для профиля {@value Storage#PROFILE}.
+ * {@link Storage} применяет каждую операцию сразу и атомарно на уровне одной записи,
+ * поэтому транзакция лишь размечает границы для синхронизаций и метрик: откат изменения не отменяет.
+ */
+public class StorageTransactionManager extends AbstractPlatformTransactionManager {
+    private final TransactionMetrics transactionMetrics;
+
+    public StorageTransactionManager(TransactionMetrics transactionMetrics) {
+        this.transactionMetrics = transactionMetrics;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        transactionMetrics.onCommit(status.isReadOnly());
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        transactionMetrics.onRollback();
+    }
+}
@@ -0,0 +1,94 @@
+package com.edu.ulab.app.transaction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Метрики транзакций: число коммитов и откатов, а также число коммитов на один HTTP-запрос.
+ */
+@Component
+public class TransactionMetrics {
+    private final ThreadLocal<RequestCommits> requestCommits = new ThreadLocal<>();
+    private final Counter readWriteCommits;
+    private final Counter readOnlyCommits;
+    private final Counter rollbacks;
+    private final DistributionSummary commitsPerRequest;
+
+    public TransactionMetrics(MeterRegistry meterRegistry) {
+        this.readWriteCommits = meterRegistry.counter("transaction.commits", "read.only", "false");
+        this.readOnlyCommits = meterRegistry.counter("transaction.commits", "read.only", "true");
+        this.rollbacks = meterRegistry.counter("transaction.rollbacks");
+        this.commitsPerRequest = DistributionSummary.builder("request.transaction.commits")
+                .description("Number of transaction commits per HTTP request")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public void beginRequest() {
+        requestCommits.set(new RequestCommits());
+    }
+
+    public void endRequest() {
+        RequestCommits commits = requestCommits.get();
+        if (commits != null) {
+            requestCommits.remove();
+            commitsPerRequest.record(commits.count);
+        }
+    }
+
+    /**
+     * Счётчик коммитов запроса текущего потока; вне запроса — отдельный счётчик, который никуда не попадает.
+     */
+    public RequestCommits currentRequest() {
+        RequestCommits commits = requestCommits.get();
+        return commits != null ? commits : new RequestCommits();
+    }
+
+    /**
+     * Выполняет {@code action} в текущем потоке и засчитывает его коммиты каждому из {@code requests}.
+     * Нужен для работы, которую фоновый поток делает за запросы, ждущие в других потоках: счётчики
+     * обновляются до возврата, поэтому запрос, дождавшийся результата, видит их.
+     */
+    public <T> T countCommitsFor(Collection<RequestCommits> requests, Supplier<T> action) {
+        RequestCommits previous = requestCommits.get();
+        RequestCommits commits = new RequestCommits();
+        requestCommits.set(commits);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                requestCommits.set(previous);
+            } else {
+                requestCommits.remove();
+            }
+            requests.forEach(request -> request.count += commits.count);
+        }
+    }
+
+    void onCommit(boolean readOnly) {
+        (readOnly ? readOnlyCommits : readWriteCommits).increment();
+        RequestCommits commits = requestCommits.get();
+        if (commits != null) {
+            commits.count++;
+        }
+    }
+
+    void onRollback() {
+        rollbacks.increment();
+    }
+
+    /**
+     * Число коммитов одного запроса. Обновляется потоком, который делает коммит за этот запрос.
+     */
+    public static final class RequestCommits {
+        private int count;
+
+        RequestCommits() {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.edu.ulab.app.web;
+
+import com.edu.ulab.app.exception.BadRequestException;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.search.BookSearchIndex;
+import com.edu.ulab.app.web.constant.WebConstant;
+import com.edu.ulab.app.web.response.BookSearchResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping(value = WebConstant.VERSION_URL + "/book",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+public class BookController {
+    private final BookSearchIndex bookSearchIndex;
+    private final BookMapper bookMapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxResults;
+
+    public BookController(BookSearchIndex bookSearchIndex,
+                          BookMapper bookMapper,
+                          @Value("${paging.default-size:50}") int defaultPageSize,
+                          @Value("${paging.max-size:500}") int maxPageSize,
+                          @Value("${book-search.max-results:10000}") int maxResults) {
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookMapper = bookMapper;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxResults = maxResults;
+    }
+
+    @GetMapping(value = "/search")
+    @Operation(summary = "Search books by a case-insensitive substring of title or author. "
+            + "Queries shorter than three characters match word beginnings only.",
+            responses = {
+                    @ApiResponse(description = "Page of ranked books with the total number of matches",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = BookSearchResponse.class)))})
+    public BookSearchResponse searchBooks(@RequestParam String q,
+                                          @RequestParam(required = false, defaultValue = "0") int page,
+                                          @RequestParam(required = false) Integer size) {
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize <= 0 || pageSize > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize + ": " + pageSize);
+        }
+        if (page < 0 || (long) (page + 1) * pageSize > maxResults) {
+            throw new BadRequestException("Only the first " + maxResults + " results can be paged: page " + page);
+        }
+        if (q.isBlank()) {
+            throw new BadRequestException("Search query must not be blank");
+        }
+
+        BookSearchIndex.SearchResult result = bookSearchIndex.search(q, page * pageSize, pageSize);
+        log.info("Response with book search '{}': page {}, {} of {} books", q, page, result.books().size(), result.total());
+        return BookSearchResponse.builder()
+                .total(result.total())
+                .books(result.books().stream()
+                        .map(bookMapper::bookDtoToBookResponse)
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.edu.ulab.app.web;
+
+import com.edu.ulab.app.exception.BadRequestException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор keyset-пагинации в base64url: область выборки и id последней отданной записи.
+ * Область (id пользователя, хэш фильтра) не даёт продолжить курсором другую выборку.
+ * Следующая страница читается с {@code id > lastId}, поэтому её стоимость не зависит от глубины.
+ */
+record PageCursor(long scope, long lastId) {
+    private static final int SIZE = 2 * Long.BYTES;
+
+    static PageCursor decode(String cursor, long scope) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new PageCursor(scope, 0);
+        }
+        PageCursor decoded;
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != SIZE) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            decoded = new PageCursor(buffer.getLong(), buffer.getLong());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+        if (decoded.scope() != scope) {
+            throw new BadRequestException("Cursor belongs to another query: " + cursor);
+        }
+        return decoded;
+    }
+
+    String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(ByteBuffer.allocate(SIZE).putLong(scope).putLong(lastId).array());
+    }
+}
@@ -1,18 +1,38 @@
 package com.edu.ulab.app.web;
 
+import com.edu.ulab.app.dto.UserFilter;
+import com.edu.ulab.app.exception.BadRequestException;
+import com.edu.ulab.app.facade.UserCreateCoalescer;
 import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.idempotency.IdempotencyStore;
 import com.edu.ulab.app.web.constant.WebConstant;
 import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.BookPageResponse;
+import com.edu.ulab.app.web.response.BookResponse;
+import com.edu.ulab.app.web.response.UserBookDetailResponse;
 import com.edu.ulab.app.web.response.UserBookResponse;
+import com.edu.ulab.app.web.response.UserPageResponse;
+import com.edu.ulab.app.web.response.UserResponse;
+import com.edu.ulab.app.web.stream.UserBookStreamProcessor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Pattern;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.edu.ulab.app.web.constant.WebConstant.REQUEST_ID_PATTERN;
 import static com.edu.ulab.app.web.constant.WebConstant.RQID;
@@ -23,24 +43,59 @@ import static com.edu.ulab.app.web.constant.WebConstant.RQID;
         produces = MediaType.APPLICATION_JSON_VALUE)
 public class UserController {
     private final UserDataFacade userDataFacade;
+    private final UserCreateCoalescer userCreateCoalescer;
+    private final UserBookStreamProcessor userBookStreamProcessor;
+    private final IdempotencyStore idempotencyStore;
+    private final int maxBatchGetSize;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public UserController(UserDataFacade userDataFacade) {
+    public UserController(UserDataFacade userDataFacade,
+                          UserCreateCoalescer userCreateCoalescer,
+                          UserBookStreamProcessor userBookStreamProcessor,
+                          IdempotencyStore idempotencyStore,
+                          @Value("${user-batch-get.max-size:500}") int maxBatchGetSize,
+                          @Value("${paging.default-size:50}") int defaultPageSize,
+                          @Value("${paging.max-size:500}") int maxPageSize) {
         this.userDataFacade = userDataFacade;
+        this.userCreateCoalescer = userCreateCoalescer;
+        this.userBookStreamProcessor = userBookStreamProcessor;
+        this.idempotencyStore = idempotencyStore;
+        this.maxBatchGetSize = maxBatchGetSize;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @PostMapping(value = "/create")
-    @Operation(summary = "Create user book row.",
+    @Operation(summary = "Create user book row. A retry with the same rqid returns the response of the first request.",
             responses = {
                     @ApiResponse(description = "User book",
                             content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                                     schema = @Schema(implementation = UserBookResponse.class)))})
     public UserBookResponse createUserWithBooks(@RequestBody UserBookRequest request,
                                                 @RequestHeader(RQID) @Pattern(regexp = REQUEST_ID_PATTERN) final String requestId) {
-        UserBookResponse response = userDataFacade.createUserWithBooks(request);
+        UserBookResponse response = idempotencyStore.execute(requestId,
+                () -> userCreateCoalescer.createUserWithBooks(request));
         log.info("Response with created user and his books: {}", response);
         return response;
     }
 
+    @PostMapping(value = "/create/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Create user book rows from a JSON array or NDJSON stream.",
+            responses = {
+                    @ApiResponse(description = "User book per created row, in request order",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = UserBookResponse.class)))})
+    public void createUsersWithBooks(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean ndjson = request.getContentType() != null
+                && MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        response.setContentType(ndjson ? MediaType.APPLICATION_NDJSON_VALUE : MediaType.APPLICATION_JSON_VALUE);
+        int created = userBookStreamProcessor.process(request.getInputStream(), response.getOutputStream(), ndjson);
+        log.info("Bulk created users with books: {}", created);
+    }
+
     @PutMapping(value = "/update")
     public UserBookResponse updateUserWithBooks(@RequestBody UserBookRequest request) {
         UserBookResponse response = userDataFacade.updateUserWithBooks(request);
@@ -55,9 +110,103 @@ public class UserController {
         return response;
     }
 
+    @GetMapping(value = "/get", params = "ids")
+    @Operation(summary = "Get users with their book ids by a comma separated list of ids.",
+            responses = {
+                    @ApiResponse(description = "User book by user id, unknown ids are omitted",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE))})
+    public Map<Long, UserBookResponse> getUsersWithBooks(@RequestParam List<Long> ids) {
+        Set<Long> userIds = ids.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (userIds.size() > maxBatchGetSize) {
+            throw new BadRequestException("Too many user ids: " + userIds.size() + ", max " + maxBatchGetSize);
+        }
+        Map<Long, UserBookResponse> response = userDataFacade.getUsersWithBooks(userIds);
+        log.info("Response with users and their books: requested {}, found {}", userIds.size(), response.size());
+        return response;
+    }
+
+    @GetMapping(value = "/list")
+    @Operation(summary = "List users ordered by id, filtered by age range and title prefix. "
+            + "Pass nextCursor of the previous page with the same filter to get the next one.",
+            responses = {
+                    @ApiResponse(description = "Page of users",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = UserPageResponse.class)))})
+    public UserPageResponse listUsers(@RequestParam(required = false) Integer minAge,
+                                      @RequestParam(required = false) Integer maxAge,
+                                      @RequestParam(required = false) String titlePrefix,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new BadRequestException("minAge must not be greater than maxAge: " + minAge + " > " + maxAge);
+        }
+        UserFilter filter = new UserFilter(minAge, maxAge, titlePrefix == null || titlePrefix.isEmpty() ? null : titlePrefix);
+        PageCursor after = PageCursor.decode(cursor, filter.hashCode());
+
+        List<UserResponse> users = userDataFacade.getUsers(filter, after.lastId(), pageSize + 1);
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = new PageCursor(filter.hashCode(), users.get(pageSize - 1).getId()).encode();
+        }
+        log.info("Response with users page: {}, {} users, has next: {}", filter, users.size(), nextCursor != null);
+        return UserPageResponse.builder()
+                .users(users)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @GetMapping(value = "/get/{userId}/books")
+    @Operation(summary = "Get a page of user books ordered by id. Pass nextCursor of the previous page to get the next one.",
+            responses = {
+                    @ApiResponse(description = "Page of books",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = BookPageResponse.class)))})
+    public BookPageResponse getUserBooks(@PathVariable Long userId,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        PageCursor after = PageCursor.decode(cursor, userId);
+
+        List<BookResponse> books = userDataFacade.getUserBooks(userId, after.lastId(), pageSize + 1);
+        String nextCursor = null;
+        if (books.size() > pageSize) {
+            books = books.subList(0, pageSize);
+            nextCursor = new PageCursor(userId, books.get(pageSize - 1).getId()).encode();
+        }
+        log.info("Response with user {} books page: {} books, has next: {}", userId, books.size(), nextCursor != null);
+        return BookPageResponse.builder()
+                .books(books)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @GetMapping(value = "/get/{userId}/details")
+    @Operation(summary = "Get user with title, author and page count of every book.",
+            responses = {
+                    @ApiResponse(description = "User with books",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = UserBookDetailResponse.class)))})
+    public UserBookDetailResponse getUserWithBookDetails(@PathVariable Long userId) {
+        UserBookDetailResponse response = userDataFacade.getUserWithBookDetails(userId);
+        log.info("Response with user {} and his book details: {} books", userId, response.getBooks().size());
+        return response;
+    }
+
     @DeleteMapping(value = "/delete/{userId}")
     public void deleteUserWithBooks(@PathVariable Long userId) {
         log.info("Delete user and his books:  userId {}", userId);
         userDataFacade.deleteUserWithBooks(userId);
     }
+
+    private int pageSize(Integer size) {
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize <= 0 || pageSize > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize + ": " + pageSize);
+        }
+        return pageSize;
+    }
 }
@@ -0,0 +1,111 @@
+package com.edu.ulab.app.web.filter;
+
+import com.edu.ulab.app.concurrent.Bulkhead;
+import com.edu.ulab.app.exception.ServiceUnavailableException;
+import com.edu.ulab.app.facade.UserCreateCoalescer;
+import com.edu.ulab.app.web.constant.WebConstant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Разводит чтение (GET, HEAD) и запись по отдельным {@link Bulkhead}: всплеск тяжёлых созданий и обновлений
+ * не занимает разрешения и соединения, отведённые чтению. Сумма {@code max-concurrent} обоих пулов
+ * не должна превышать размер пула соединений, иначе доли соединений перестают быть изолированными.
+ * Стоит после {@link ConcurrencyLimitFilter}, чтобы время ожидания разрешения входило в его замер задержки.
+ * При включённом групповом создании ({@code user-create-batch.enabled}) {@code POST /user/create} пулом
+ * записи не ограничивается: запрос держал бы разрешение, пока ждёт пачку в {@link UserCreateCoalescer},
+ * и пачка не набиралась бы больше {@code bulkhead.write.max-concurrent}. Соединения таких запросов
+ * ограничены числом потоков {@code user-create-batch.workers}.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class BulkheadFilter extends OncePerRequestFilter {
+    /**
+     * Атрибут запроса, отклонённого пулом: {@link ConcurrencyLimitFilter} не берёт его время в замер задержки.
+     */
+    static final String REJECTED_ATTRIBUTE = BulkheadFilter.class.getName() + ".REJECTED";
+    private static final String CREATE_USER_PATH = WebConstant.VERSION_URL + "/user/create";
+
+    private final Bulkhead read;
+    private final Bulkhead write;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean createBatching;
+    private final String retryAfterSeconds;
+
+    public BulkheadFilter(@Value("${bulkhead.enabled:true}") boolean enabled,
+                          @Value("${bulkhead.read.max-concurrent:6}") int readMaxConcurrent,
+                          @Value("${bulkhead.read.max-queue:50}") int readMaxQueue,
+                          @Value("${bulkhead.read.max-wait:500ms}") Duration readMaxWait,
+                          @Value("${bulkhead.write.max-concurrent:4}") int writeMaxConcurrent,
+                          @Value("${bulkhead.write.max-queue:20}") int writeMaxQueue,
+                          @Value("${bulkhead.write.max-wait:1s}") Duration writeMaxWait,
+                          @Value("${bulkhead.retry-after:1s}") Duration retryAfter,
+                          @Value("${user-create-batch.enabled:false}") boolean createBatching,
+                          @Value("${user-create-batch.workers:2}") int createBatchWorkers,
+                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.read = new Bulkhead("read", readMaxConcurrent, readMaxQueue, readMaxWait, meterRegistry);
+        this.write = new Bulkhead("write", writeMaxConcurrent, writeMaxQueue, writeMaxWait, meterRegistry);
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = FilterResponses.retryAfterSeconds(retryAfter);
+        this.createBatching = createBatching;
+        int createConnections = createBatching ? createBatchWorkers : 0;
+        if (enabled && readMaxConcurrent + writeMaxConcurrent + createConnections > connectionPoolSize) {
+            log.warn("Bulkheads allow {} read and {} write requests and user create batching uses {} workers, "
+                            + "but the connection pool has only {} connections",
+                    readMaxConcurrent, writeMaxConcurrent, createConnections, connectionPoolSize);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getServletPath().startsWith(WebConstant.VERSION_URL)
+                || createBatching && isCreateUser(request);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request,
+                                    final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        Bulkhead bulkhead = isRead(request) ? read : write;
+        try {
+            bulkhead.acquire();
+        } catch (ServiceUnavailableException e) {
+            log.warn("Rejected {} {}: {}", request.getMethod(), request.getServletPath(), e.getMessage());
+            request.setAttribute(REJECTED_ATTRIBUTE, Boolean.TRUE);
+            FilterResponses.serviceUnavailable(response, objectMapper, retryAfterSeconds, e.getMessage());
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private static boolean isCreateUser(HttpServletRequest request) {
+        return HttpMethod.POST.matches(request.getMethod()) && CREATE_USER_PATH.equals(request.getServletPath());
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+}
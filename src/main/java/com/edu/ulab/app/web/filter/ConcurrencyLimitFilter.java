@@ -0,0 +1,95 @@
+package com.edu.ulab.app.web.filter;
+
+import com.edu.ulab.app.concurrent.AdaptiveConcurrencyLimit;
+import com.edu.ulab.app.web.constant.WebConstant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Сбрасывает нагрузку сверх {@link AdaptiveConcurrencyLimit}: лишние запросы к API сразу получают 503
+ * с {@code Retry-After}, а не встают в очередь к потокам Tomcat и пулу соединений.
+ * Стоит после фильтра метрик Spring, чтобы отклонённые запросы попадали в {@code http.server.requests}.
+ * Actuator не ограничивается.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final String BULK_SUFFIX = "/bulk";
+
+    private final AdaptiveConcurrencyLimit limit;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(@Value("${concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${concurrency-limit.initial-limit:20}") int initialLimit,
+                                  @Value("${concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${concurrency-limit.max-limit:200}") int maxLimit,
+                                  @Value("${concurrency-limit.tolerance:1.5}") double tolerance,
+                                  @Value("${concurrency-limit.smoothing:0.2}") double smoothing,
+                                  @Value("${concurrency-limit.retry-after:1s}") Duration retryAfter,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.limit = new AdaptiveConcurrencyLimit("http", initialLimit, minLimit, maxLimit, tolerance, smoothing,
+                meterRegistry);
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = FilterResponses.retryAfterSeconds(retryAfter);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getServletPath().startsWith(WebConstant.VERSION_URL);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request,
+                                    final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        if (!limit.tryAcquire()) {
+            log.warn("Rejected {} {}: concurrency limit {} reached", request.getMethod(), request.getServletPath(),
+                    limit.getLimit());
+            FilterResponses.serviceUnavailable(response, objectMapper, retryAfterSeconds,
+                    "Too many concurrent requests");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean sampled = false;
+        try {
+            filterChain.doFilter(request, response);
+            sampled = true;
+        } finally {
+            if (sampled && isLatencySample(request, response)) {
+                limit.release(System.nanoTime() - start);
+            } else {
+                limit.release();
+            }
+        }
+    }
+
+    /**
+     * Задержку учитываем только у успешных ответов: ошибки и отказы {@link BulkheadFilter} приходят быстро
+     * и занижали бы базовую задержку, а время потоковой загрузки зависит от размера тела, а не от загрузки базы.
+     */
+    private static boolean isLatencySample(HttpServletRequest request, HttpServletResponse response) {
+        if (request.getAttribute(BulkheadFilter.REJECTED_ATTRIBUTE) != null) {
+            return false;
+        }
+        int status = response.getStatus();
+        return status >= 200 && status < 300 && !request.getServletPath().endsWith(BULK_SUFFIX);
+    }
+}
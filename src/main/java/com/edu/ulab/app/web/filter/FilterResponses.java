@@ -0,0 +1,32 @@
+package com.edu.ulab.app.web.filter;
+
+import com.edu.ulab.app.web.response.BaseWebResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Ответы, которые фильтры пишут сами: до {@code ControllerExceptionHandler} запрос не доходит.
+ */
+final class FilterResponses {
+
+    private FilterResponses() {
+    }
+
+    static String retryAfterSeconds(Duration retryAfter) {
+        return Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    static void serviceUnavailable(HttpServletResponse response, ObjectMapper objectMapper,
+                                   String retryAfterSeconds, String message) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new BaseWebResponse(message));
+    }
+}
@@ -1,5 +1,6 @@
 package com.edu.ulab.app.web.filter;
 
+import com.edu.ulab.app.transaction.TransactionMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
@@ -14,6 +15,12 @@ import java.io.IOException;
 @Slf4j
 @Component
 public class HttpRequestFilter extends OncePerRequestFilter {
+    private final TransactionMetrics transactionMetrics;
+
+    public HttpRequestFilter(TransactionMetrics transactionMetrics) {
+        this.transactionMetrics = transactionMetrics;
+    }
+
     @Override
     protected void doFilterInternal(final HttpServletRequest request,
                                     final HttpServletResponse response,
@@ -21,9 +28,11 @@ public class HttpRequestFilter extends OncePerRequestFilter {
         String requestId = request.getHeader("rqid");
         MDC.put("requestId", requestId);
         log.info("RequestId : {}", requestId);
+        transactionMetrics.beginRequest();
         try {
             filterChain.doFilter(request, response);
         } finally {
+            transactionMetrics.endRequest();
             MDC.remove("requestId");
         }
     }
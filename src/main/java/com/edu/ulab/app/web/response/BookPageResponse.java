@@ -0,0 +1,16 @@
+package com.edu.ulab.app.web.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BookPageResponse {
+    private List<BookResponse> books;
+    /**
+     * Курсор следующей страницы; {@code null} на последней странице.
+     */
+    private String nextCursor;
+}
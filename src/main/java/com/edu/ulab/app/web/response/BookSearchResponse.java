@@ -0,0 +1,16 @@
+package com.edu.ulab.app.web.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BookSearchResponse {
+    /**
+     * Число всех найденных книг.
+     */
+    private long total;
+    private List<BookResponse> books;
+}
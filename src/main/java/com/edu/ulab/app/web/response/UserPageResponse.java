@@ -0,0 +1,16 @@
+package com.edu.ulab.app.web.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class UserPageResponse {
+    private List<UserResponse> users;
+    /**
+     * Курсор следующей страницы; {@code null} на последней странице.
+     */
+    private String nextCursor;
+}
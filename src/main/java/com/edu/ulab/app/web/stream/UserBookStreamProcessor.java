@@ -0,0 +1,135 @@
+package com.edu.ulab.app.web.stream;
+
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковая обработка массового создания пользователей.
+ * Тело запроса (JSON-массив или NDJSON) читается по одному объекту через Jackson streaming API,
+ * объекты сохраняются пачками по {@code user-bulk.batch-size} в отдельных транзакциях,
+ * ответы по каждой пачке сразу пишутся в выходной поток.
+ * Если пачка или разбор тела падают после того, как ответы уже ушли клиенту, вместо молча обрезанного
+ * ответа последним элементом пишется {@code {"error": ..., "index": n}}, где {@code n} - номер первого
+ * несозданного объекта тела; предыдущие пачки остаются сохранёнными.
+ */
+@Slf4j
+@Component
+public class UserBookStreamProcessor {
+    private final ObjectMapper objectMapper;
+    private final UserDataFacade userDataFacade;
+    private final int batchSize;
+
+    public UserBookStreamProcessor(ObjectMapper objectMapper,
+                                   UserDataFacade userDataFacade,
+                                   @Value("${user-bulk.batch-size:100}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("user-bulk.batch-size must be positive: " + batchSize);
+        }
+        this.objectMapper = objectMapper;
+        this.userDataFacade = userDataFacade;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param ndjson писать ответы как NDJSON (иначе JSON-массив)
+     * @return число созданных пользователей
+     * @throws IOException если тело не разобрано или пачка не сохранена до того, как что-либо создано
+     */
+    public int process(InputStream input, OutputStream output, boolean ndjson) throws IOException {
+        int created = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(input);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            // иначе при ошибке close() допишет "]" и обрезанный ответ будет выглядеть полным
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            }
+
+            try {
+                JsonToken token = parser.nextToken();
+                boolean array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+
+                List<UserBookRequest> batch = new ArrayList<>(batchSize);
+                while (token == JsonToken.START_OBJECT) {
+                    batch.add(objectMapper.readValue(parser, UserBookRequest.class));
+                    if (batch.size() == batchSize) {
+                        created += writeBatch(batch, generator, ndjson);
+                    }
+                    token = parser.nextToken();
+                }
+                if (array ? token != JsonToken.END_ARRAY : token != null) {
+                    throw new JsonParseException(parser, "Expected user book object, got " + token);
+                }
+                created += writeBatch(batch, generator, ndjson);
+            } catch (IOException | RuntimeException e) {
+                if (created == 0) {
+                    // клиенту ещё ничего не отправлено, ошибку вернёт обработчик исключений
+                    throw e;
+                }
+                log.error("Bulk create stopped after {} users", created, e);
+                writeError(generator, e, created, ndjson);
+            }
+
+            startArray(generator, ndjson);
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+        return created;
+    }
+
+    private int writeBatch(List<UserBookRequest> batch, JsonGenerator generator, boolean ndjson) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<UserBookResponse> responses = userDataFacade.createUsersWithBooks(batch);
+        startArray(generator, ndjson);
+        for (UserBookResponse response : responses) {
+            objectMapper.writeValue(generator, response);
+            if (ndjson) {
+                generator.writeRaw('\n');
+            }
+        }
+        generator.flush();
+        log.info("Created bulk batch of {} users", responses.size());
+        batch.clear();
+        return responses.size();
+    }
+
+    private void writeError(JsonGenerator generator, Exception e, int index, boolean ndjson) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", e.getMessage());
+        generator.writeNumberField("index", index);
+        generator.writeEndObject();
+        if (ndjson) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Открывает массив ответа перед первым элементом, чтобы ошибка до первой пачки не оставляла в теле "[".
+     */
+    private static void startArray(JsonGenerator generator, boolean ndjson) throws IOException {
+        if (!ndjson && generator.getOutputContext().inRoot()) {
+            generator.writeStartArray();
+        }
+    }
+}
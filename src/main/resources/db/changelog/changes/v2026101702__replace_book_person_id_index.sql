@@ -0,0 +1,3 @@
+DROP INDEX ulab_edu.idx_ulab_edu_book_person_id;
+
+CREATE INDEX idx_ulab_edu_book_person_id_id on ulab_edu.book (person_id, id);
@@ -0,0 +1 @@
+CREATE INDEX idx_ulab_edu_person_id_covering on ulab_edu.person (id) INCLUDE (age, title, full_name);
@@ -0,0 +1,16 @@
+create table ulab_edu.idempotent_request
+(
+    request_id varchar(64) not null,
+    user_id    integer     not null,
+    book_ids   integer[]   not null,
+    created_at timestamp   not null default now(),
+    constraint pk_ulab_edu_idempotent_request_id primary key (request_id)
+);
+
+CREATE INDEX idx_ulab_edu_idempotent_request_created_at on ulab_edu.idempotent_request (created_at);
+
+comment on table ulab_edu.idempotent_request is 'Ответы на выполненные запросы создания для повторов с тем же rqid';
+comment on column ulab_edu.idempotent_request.request_id is 'Идентификатор запроса из заголовка rqid';
+comment on column ulab_edu.idempotent_request.user_id is 'Идентификатор созданного пользователя';
+comment on column ulab_edu.idempotent_request.book_ids is 'Идентификаторы созданных книг';
+comment on column ulab_edu.idempotent_request.created_at is 'Время выполнения запроса';
@@ -0,0 +1,156 @@
+package com.edu.ulab.app.cache;
+
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тестирование функционала {@link UserBookCache}.
+ */
+@DisplayName("Testing user book cache.")
+public class UserBookCacheTest {
+    SimpleMeterRegistry meterRegistry;
+    UserBookCache cache;
+    AtomicReference<List<Long>> database;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserBookCache(100, Duration.ofMinutes(5), Duration.ofSeconds(5), meterRegistry);
+        database = new AtomicReference<>(List.of(1L, 2L));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Повторное чтение берётся из кэша. Должно пройти успешно.")
+    void get_cachesLoadedValue_Test() {
+        UserBookResponse first = cache.get(1L, () -> load(1L));
+        UserBookResponse second = cache.get(1L, () -> load(1L));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("После записи и инвалидации читается новое значение. Должно пройти успешно.")
+    void get_afterWrite_returnsFreshValue_Test() {
+        cache.get(1L, () -> load(1L));
+
+        database.set(List.of(3L));
+        cache.invalidate(1L);
+
+        assertEquals(List.of(3L), cache.get(1L, () -> load(1L)).getBooksIdList());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Чтение, пересёкшееся с записью, не кладёт устаревшее значение в кэш.")
+    void get_racingWithWrite_doesNotCacheStaleValue_Test() {
+        UserBookResponse stale = cache.get(1L, () -> {
+            UserBookResponse response = load(1L);
+            // запись коммитится, пока чтение ещё не положило результат в кэш
+            database.set(List.of(3L));
+            cache.invalidate(1L);
+            return response;
+        });
+
+        assertEquals(List.of(1L, 2L), stale.getBooksIdList());
+        assertEquals(List.of(3L), cache.get(1L, () -> load(1L)).getBooksIdList());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Одновременные промахи по одному пользователю загружаются один раз. Должно пройти успешно.")
+    void get_concurrentMisses_loadOnce_Test() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<UserBookResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            responses.add(executor.submit(() -> cache.get(1L, () -> {
+                try {
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return load(1L);
+            })));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("singleflight.calls").tag("result", "coalesced").counter().count() < 15
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<UserBookResponse> response : responses) {
+            assertEquals(List.of(1L, 2L), response.get(5, TimeUnit.SECONDS).getBooksIdList());
+        }
+        assertEquals(1, loads.get());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Инвалидация затрагивает только своего пользователя. Должно пройти успешно.")
+    void invalidate_isPrecise_Test() {
+        cache.get(1L, () -> load(1L));
+        cache.get(2L, () -> load(2L));
+
+        cache.invalidate(1L);
+        cache.get(1L, () -> load(1L));
+        cache.get(2L, () -> load(2L));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("Пакетное чтение загружает одним вызовом только промахи. Должно пройти успешно.")
+    void getAll_loadsOnlyMisses_Test() {
+        UserBookResponse cached = cache.get(2L, () -> load(2L));
+        List<Collection<Long>> loaderCalls = new ArrayList<>();
+
+        Map<Long, UserBookResponse> responses = cache.getAll(List.of(3L, 2L, 1L, 4L), userIds -> {
+            loaderCalls.add(List.copyOf(userIds));
+            Map<Long, UserBookResponse> loaded = new HashMap<>();
+            loaded.put(1L, load(1L));
+            loaded.put(3L, load(3L));
+            return loaded;
+        });
+
+        assertEquals(List.of(List.of(3L, 1L, 4L)), loaderCalls);
+        assertEquals(List.of(3L, 2L, 1L), List.copyOf(responses.keySet()));
+        assertSame(cached, responses.get(2L));
+        assertSame(responses.get(1L), cache.get(1L, () -> load(1L)));
+        assertEquals(3, loads.get());
+    }
+
+    private UserBookResponse load(Long userId) {
+        loads.incrementAndGet();
+        return UserBookResponse.builder()
+                .userId(userId)
+                .booksIdList(database.get())
+                .build();
+    }
+}
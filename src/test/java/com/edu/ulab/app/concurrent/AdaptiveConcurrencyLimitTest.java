@@ -0,0 +1,96 @@
+package com.edu.ulab.app.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестирование функционала {@link AdaptiveConcurrencyLimit}.
+ */
+@DisplayName("Testing adaptive concurrency limit.")
+public class AdaptiveConcurrencyLimitTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    SimpleMeterRegistry meterRegistry;
+    AdaptiveConcurrencyLimit limit;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limit = new AdaptiveConcurrencyLimit("test", 10, 2, 100, 1.5, 0.2, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Запросы сверх предела сразу отклоняются. Должно пройти успешно.")
+    void tryAcquire_rejectsOverLimit_Test() {
+        //When
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+
+        //Then
+        assertFalse(limit.tryAcquire());
+        assertEquals(10, limit.getInFlight());
+        assertEquals(1, meterRegistry.get("concurrency.limit.requests").tag("result", "rejected").counter().count());
+        assertEquals(10, meterRegistry.get("concurrency.limit.inflight").gauge().value());
+        limit.release();
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("При стабильной задержке и полной загрузке предел растёт. Должно пройти успешно.")
+    void release_growsWhenLatencyIsStable_Test() {
+        //When
+        runSaturated(FAST, 50);
+
+        //Then
+        assertThat(limit.getLimit()).isGreaterThan(10);
+        assertEquals(limit.getLimit(), meterRegistry.get("concurrency.limit").gauge().value());
+    }
+
+    @Test
+    @DisplayName("При росте задержки предел снижается. Должно пройти успешно.")
+    void release_shrinksWhenLatencyGrows_Test() {
+        //Given
+        runSaturated(FAST, 50);
+        int grown = limit.getLimit();
+
+        //When
+        runSaturated(SLOW, 3);
+
+        //Then
+        assertThat(limit.getLimit()).isLessThan(grown / 2);
+    }
+
+    @Test
+    @DisplayName("Без нагрузки предел не растёт. Должно пройти успешно.")
+    void release_keepsLimitWhenUnderused_Test() {
+        //When
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(FAST);
+        }
+
+        //Then
+        assertEquals(10, limit.getLimit());
+    }
+
+    private void runSaturated(long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limit.release(rttNanos);
+            }
+        }
+    }
+}
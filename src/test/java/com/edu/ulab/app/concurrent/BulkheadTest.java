@@ -0,0 +1,115 @@
+package com.edu.ulab.app.concurrent;
+
+import com.edu.ulab.app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестирование функционала {@link Bulkhead}.
+ */
+@DisplayName("Testing bulkhead.")
+public class BulkheadTest {
+    SimpleMeterRegistry meterRegistry;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Ожидающий получает разрешение после освобождения. Должно пройти успешно.")
+    void acquire_waitsForRelease_Test() throws Exception {
+        //Given
+        Bulkhead bulkhead = new Bulkhead("write", 1, 1, Duration.ofSeconds(5), meterRegistry);
+        bulkhead.acquire();
+        Future<?> waiter = executor.submit(bulkhead::acquire);
+        awaitQueueDepth(bulkhead, 1);
+
+        //When
+        bulkhead.release();
+
+        //Then
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(0, bulkhead.getQueueDepth());
+        assertEquals(1, meterRegistry.get("bulkhead.active").tag("name", "write").gauge().value());
+        assertEquals(2, meterRegistry.get("bulkhead.wait").tag("name", "write").timer().count());
+    }
+
+    @Test
+    @DisplayName("При полной очереди запрос сразу отклоняется. Должно пройти успешно.")
+    void acquire_rejectsWhenQueueIsFull_Test() throws Exception {
+        //Given
+        Bulkhead bulkhead = new Bulkhead("write", 1, 1, Duration.ofSeconds(5), meterRegistry);
+        bulkhead.acquire();
+        Future<?> waiter = executor.submit(bulkhead::acquire);
+        awaitQueueDepth(bulkhead, 1);
+
+        //When
+        assertThrows(ServiceUnavailableException.class, bulkhead::acquire);
+
+        //Then
+        assertEquals(1, rejected("queue_full"));
+        bulkhead.release();
+        waiter.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Разрешение, не освободившееся за max-wait, даёт 503. Должно пройти успешно.")
+    void acquire_timesOut_Test() {
+        //Given
+        Bulkhead bulkhead = new Bulkhead("read", 1, 10, Duration.ofMillis(20), meterRegistry);
+        bulkhead.acquire();
+
+        //When
+        assertThrows(ServiceUnavailableException.class, bulkhead::acquire);
+
+        //Then
+        assertEquals(1, rejected("timeout"));
+        assertEquals(0, bulkhead.getQueueDepth());
+    }
+
+    @Test
+    @DisplayName("Занятый пул записи не мешает чтению. Должно пройти успешно.")
+    void acquire_isolatesBulkheads_Test() {
+        //Given
+        Bulkhead write = new Bulkhead("write", 1, 0, Duration.ofSeconds(5), meterRegistry);
+        Bulkhead read = new Bulkhead("read", 1, 0, Duration.ofSeconds(5), meterRegistry);
+        write.acquire();
+
+        //When
+        assertThrows(ServiceUnavailableException.class, write::acquire);
+
+        //Then
+        assertDoesNotThrow(read::acquire);
+    }
+
+    private void awaitQueueDepth(Bulkhead bulkhead, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getQueueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(depth, meterRegistry.get("bulkhead.queue").gauge().value());
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("bulkhead.rejected").tag("reason", reason).counter().count();
+    }
+}
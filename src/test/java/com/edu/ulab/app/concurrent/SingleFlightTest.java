@@ -0,0 +1,176 @@
+package com.edu.ulab.app.concurrent;
+
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестирование функционала {@link SingleFlight}.
+ */
+@DisplayName("Testing single flight.")
+public class SingleFlightTest {
+    private static final int CALLERS = 32;
+
+    SimpleMeterRegistry meterRegistry;
+    SingleFlight<Long, String> singleFlight;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Одновременные вызовы одного ключа выполняют загрузчик один раз. Должно пройти успешно.")
+    void execute_coalescesConcurrentCalls_Test() throws Exception {
+        //Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        //When
+        List<Future<String>> results = submitAll(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return "value";
+        });
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        //Then
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, count("loaded"));
+        assertEquals(CALLERS - 1, count("coalesced"));
+        assertEquals("next", singleFlight.execute(1L, () -> "next"));
+    }
+
+    @Test
+    @DisplayName("Ошибку загрузчика получают все ожидающие. Должно пройти успешно.")
+    void execute_propagatesError_Test() throws Exception {
+        //Given
+        CountDownLatch release = new CountDownLatch(1);
+
+        //When
+        List<Future<String>> results = submitAll(() -> {
+            await(release);
+            throw new NotFoundException("User not found: 1");
+        });
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        //Then
+        for (Future<String> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertThat(exception.getCause()).isInstanceOf(NotFoundException.class);
+        }
+        assertEquals("retried", singleFlight.execute(1L, () -> "retried"));
+    }
+
+    @Test
+    @DisplayName("Ожидающий поток получает 503 по таймауту, загрузка продолжается. Должно пройти успешно.")
+    void execute_timesOutWaiter_Test() throws Exception {
+        //Given
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1L, () -> {
+            await(release);
+            return "value";
+        }));
+        awaitInFlight();
+
+        //When
+        assertThrows(ServiceUnavailableException.class, () -> singleFlight.execute(1L, () -> "other"));
+        release.countDown();
+
+        //Then
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, count("timeout"));
+    }
+
+    @Test
+    @DisplayName("После forget новый вызов начинает свою загрузку. Должно пройти успешно.")
+    void forget_startsNewLoad_Test() throws Exception {
+        //Given
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stale = executor.submit(() -> singleFlight.execute(1L, () -> {
+            await(release);
+            return "stale";
+        }));
+        awaitInFlight();
+
+        //When
+        singleFlight.forget(1L);
+        String fresh = singleFlight.execute(1L, () -> "fresh");
+        release.countDown();
+
+        //Then
+        assertEquals("fresh", fresh);
+        assertEquals("stale", stale.get(5, TimeUnit.SECONDS));
+        assertEquals("next", singleFlight.execute(1L, () -> "next"));
+    }
+
+    private List<Future<String>> submitAll(Supplier<String> loader) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(1L, loader)));
+        }
+        return results;
+    }
+
+    private void awaitCoalesced(int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("coalesced") < callers && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(callers, count("coalesced"));
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("singleflight.inflight").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, meterRegistry.get("singleflight.inflight").gauge().value());
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("singleflight.calls").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
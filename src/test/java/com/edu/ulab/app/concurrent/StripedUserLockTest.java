@@ -0,0 +1,133 @@
+package com.edu.ulab.app.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тестирование функционала {@link StripedUserLock}.
+ */
+@DisplayName("Testing striped user lock.")
+public class StripedUserLockTest {
+    private static final long HOLD_MILLIS = 20;
+    private static final int OPERATIONS_PER_THREAD = 5;
+
+    SimpleMeterRegistry meterRegistry;
+    StripedUserLock userLock;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userLock = new StripedUserLock(64, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Число страйпов округляется до степени двойки. Должно пройти успешно.")
+    void stripeCount_isPowerOfTwo_Test() {
+        assertEquals(64, userLock.stripeCount());
+        assertEquals(128, new StripedUserLock(100, meterRegistry).stripeCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 4, 8})
+    @DisplayName("Операции над разными пользователями масштабируются с числом потоков.")
+    void differentUsers_scaleWithThreads_Test(int threads) throws Exception {
+        long baselineMillis = runConcurrently(1, threadIndex -> (long) threadIndex + 1);
+        long elapsedMillis = runConcurrently(threads, threadIndex -> (long) threadIndex + 1);
+
+        // последовательное выполнение заняло бы baseline * threads
+        assertThat(elapsedMillis).isLessThan((long) (baselineMillis * threads * 0.75));
+    }
+
+    @Test
+    @DisplayName("Операции над одним пользователем выполняются последовательно.")
+    void sameUser_isSerialized_Test() throws Exception {
+        int threads = 4;
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        userLock.withLock(1L, () -> {
+                            maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                            sleep(1);
+                            inside.decrementAndGet();
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, maxInside.get());
+    }
+
+    @Test
+    @DisplayName("Время ожидания и удержания блокировки попадает в метрики.")
+    void lockTimers_areRecorded_Test() {
+        Long result = userLock.withLock(42L, () -> 42L);
+
+        assertEquals(42L, result);
+        assertEquals(1, meterRegistry.get("user.lock.wait").timer().count());
+        assertEquals(1, meterRegistry.get("user.lock.hold").timer().count());
+    }
+
+    private long runConcurrently(int threads, ThreadUserId userIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Long userId = userIds.userId(i);
+                tasks.add(() -> {
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        userLock.withLock(userId, () -> sleep(HOLD_MILLIS));
+                    }
+                    return null;
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadUserId {
+        Long userId(int threadIndex);
+    }
+}
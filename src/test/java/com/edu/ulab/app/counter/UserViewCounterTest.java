@@ -0,0 +1,107 @@
+package com.edu.ulab.app.counter;
+
+import com.edu.ulab.app.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестирование функционала {@link UserViewCounter}.
+ */
+@DisplayName("Testing user view counter.")
+public class UserViewCounterTest {
+    UserService userService;
+    UserViewCounter userViewCounter;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        userViewCounter = new UserViewCounter(userService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Просмотры копятся в памяти и сбрасываются одним вызовом. Должно пройти успешно.")
+    void flush_aggregatesViews_Test() throws InterruptedException {
+        //Given
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            long userId = i % 2 == 0 ? 1L : 2L;
+            executor.execute(() -> userViewCounter.increment(userId));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        //When
+        userViewCounter.flush();
+
+        //Then
+        verify(userService).addViewCounts(Map.of(1L, 500L, 2L, 500L));
+        verifyNoMoreInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("Без новых просмотров сброс не обращается к базе. Должно пройти успешно.")
+    void flush_withoutViews_Test() {
+        userViewCounter.increment(1L);
+        userViewCounter.flush();
+        userViewCounter.flush();
+
+        verify(userService, times(1)).addViewCounts(anyMap());
+    }
+
+    @Test
+    @DisplayName("При ошибке сброса просмотры не теряются. Должно пройти успешно.")
+    void flush_failure_keepsViews_Test() {
+        //Given
+        userViewCounter.increment(1L);
+        doThrow(new IllegalStateException("db is down"))
+                .doNothing()
+                .when(userService).addViewCounts(anyMap());
+
+        //When
+        userViewCounter.flush();
+        userViewCounter.increment(1L);
+        userViewCounter.shutdown();
+
+        //Then
+        verify(userService).addViewCounts(Map.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Просмотры, пришедшие во время сброса, не теряются. Должно пройти успешно.")
+    void flush_concurrentIncrements_keepsViews_Test() throws InterruptedException {
+        //Given
+        AtomicLong flushed = new AtomicLong();
+        doAnswer(invocation -> {
+            Map<Long, Long> views = invocation.getArgument(0);
+            views.values().forEach(flushed::addAndGet);
+            return null;
+        }).when(userService).addViewCounts(anyMap());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 100_000; i++) {
+            executor.execute(() -> userViewCounter.increment(1L));
+        }
+        executor.shutdown();
+
+        //When
+        while (!executor.isTerminated()) {
+            userViewCounter.flush();
+        }
+        userViewCounter.flush();
+
+        //Then
+        assertEquals(100_000, flushed.get());
+    }
+}
@@ -0,0 +1,117 @@
+package com.edu.ulab.app.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Детерминированный генератор пользователей и книг по {@link DatasetSpec}.
+ * Данные не накапливаются в памяти: пользователи отдаются по одному вместе со своими книгами.
+ */
+public class DatasetGenerator {
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int MIN_AGE = 18;
+    private static final int MAX_AGE = 90;
+    private static final int MAX_PAGE_COUNT = 2000;
+
+    private final DatasetSpec spec;
+    private final double[] bookCountCdf;
+
+    public DatasetGenerator(DatasetSpec spec) {
+        this.spec = spec;
+        this.bookCountCdf = new double[spec.maxBooksPerUser() + 1];
+        double total = 0;
+        for (int k = 0; k < bookCountCdf.length; k++) {
+            total += weight(k);
+            bookCountCdf[k] = total;
+        }
+        for (int k = 0; k < bookCountCdf.length; k++) {
+            bookCountCdf[k] /= total;
+        }
+    }
+
+    public DatasetSpec spec() {
+        return spec;
+    }
+
+    /**
+     * Ожидаемое среднее число книг у пользователя.
+     */
+    public double meanBooksPerUser() {
+        double previous = 0;
+        double mean = 0;
+        for (int k = 0; k < bookCountCdf.length; k++) {
+            mean += k * (bookCountCdf[k] - previous);
+            previous = bookCountCdf[k];
+        }
+        return mean;
+    }
+
+    /**
+     * Генерирует пользователей по возрастанию id; при каждом вызове данные одинаковые.
+     */
+    public DatasetSummary generate(Consumer<GeneratedUser> consumer) {
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        long firstBookId = spec.firstId() + spec.users();
+        long nextBookId = firstBookId;
+        for (int i = 0; i < spec.users(); i++) {
+            long userId = spec.firstId() + i;
+            int bookCount = sampleBookCount(random);
+            if (nextBookId + bookCount - 1 > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Dataset does not fit into integer ids, last id " + (nextBookId + bookCount));
+            }
+            List<GeneratedBook> books = new ArrayList<>(bookCount);
+            for (int j = 0; j < bookCount; j++) {
+                books.add(new GeneratedBook(nextBookId++, userId, text(random), text(random),
+                        1 + random.nextInt(MAX_PAGE_COUNT)));
+            }
+            consumer.accept(new GeneratedUser(userId, text(random), uniqueTitle(random, userId),
+                    random.nextInt(MIN_AGE, MAX_AGE + 1), books));
+        }
+        return new DatasetSummary(spec.users(), nextBookId - firstBookId, nextBookId - 1);
+    }
+
+    private double weight(int bookCount) {
+        return 1 / Math.pow(bookCount + 1, spec.booksSkew());
+    }
+
+    private int sampleBookCount(SplittableRandom random) {
+        int index = Arrays.binarySearch(bookCountCdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, spec.maxBooksPerUser());
+    }
+
+    private String text(SplittableRandom random) {
+        return letters(random, random.nextInt(spec.minLength(), spec.maxLength() + 1));
+    }
+
+    /**
+     * Уникальность под {@code idx_ulab_edu_person_title} обеспечивает суффикс из id пользователя.
+     */
+    private String uniqueTitle(SplittableRandom random, long userId) {
+        String suffix = "-" + Long.toString(userId, Character.MAX_RADIX);
+        int length = random.nextInt(spec.minLength(), spec.maxLength() + 1);
+        return letters(random, Math.max(0, length - suffix.length())) + suffix;
+    }
+
+    private static String letters(SplittableRandom random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    public record GeneratedUser(long id, String fullName, String title, int age, List<GeneratedBook> books) {
+    }
+
+    public record GeneratedBook(long id, long userId, String title, String author, int pageCount) {
+    }
+
+    /**
+     * @param maxId наибольший выданный идентификатор
+     */
+    public record DatasetSummary(long users, long books, long maxId) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.edu.ulab.app.dataset;
+
+import com.edu.ulab.app.dataset.DatasetGenerator.DatasetSummary;
+import com.edu.ulab.app.dataset.DatasetGenerator.GeneratedBook;
+import com.edu.ulab.app.dataset.DatasetGenerator.GeneratedUser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.withinPercentage;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тестирование функционала {@link DatasetGenerator}.
+ */
+@DisplayName("Testing synthetic dataset generator.")
+public class DatasetGeneratorTest {
+    private static final int USERS = 20_000;
+
+    @Test
+    @DisplayName("Одинаковые параметры дают одинаковые данные. Должно пройти успешно.")
+    void generate_isDeterministic_Test() {
+        DatasetSpec spec = DatasetSpec.of(100);
+
+        assertEquals(generate(spec), generate(spec));
+    }
+
+    @Test
+    @DisplayName("Строки укладываются в varchar(50), title уникален, id идут подряд. Должно пройти успешно.")
+    void generate_respectsSchemaConstraints_Test() {
+        DatasetSpec spec = DatasetSpec.of(USERS);
+        List<GeneratedUser> users = generate(spec);
+
+        Set<String> titles = new HashSet<>();
+        long expectedBookId = spec.firstId() + USERS;
+        for (GeneratedUser user : users) {
+            assertThat(titles.add(user.title())).isTrue();
+            assertThat(user.title().length()).isBetween(spec.minLength(), DatasetSpec.COLUMN_LENGTH);
+            assertThat(user.fullName().length()).isBetween(spec.minLength(), spec.maxLength());
+            for (GeneratedBook book : user.books()) {
+                assertEquals(expectedBookId++, book.id());
+                assertEquals(user.id(), book.userId());
+                assertThat(book.title().length()).isBetween(spec.minLength(), spec.maxLength());
+                assertThat(book.author().length()).isBetween(spec.minLength(), spec.maxLength());
+            }
+        }
+        assertEquals(spec.firstId() + USERS - 1, users.get(USERS - 1).id());
+    }
+
+    @Test
+    @DisplayName("Число книг у пользователя распределено по Zipf с заданным средним. Должно пройти успешно.")
+    void generate_skewsBooksPerUser_Test() {
+        DatasetGenerator generator = new DatasetGenerator(DatasetSpec.of(USERS));
+        int[] histogram = new int[generator.spec().maxBooksPerUser() + 1];
+
+        DatasetSummary summary = generator.generate(user -> histogram[user.books().size()]++);
+
+        assertEquals(USERS, summary.users());
+        assertEquals(summary.books(), summary.maxId() - generator.spec().firstId() - USERS + 1);
+        assertThat((double) summary.books() / USERS)
+                .isCloseTo(generator.meanBooksPerUser(), withinPercentage(5));
+        assertThat(histogram[0]).isGreaterThan(histogram[1]);
+        assertThat(histogram[1]).isGreaterThan(histogram[10]);
+        assertThat(histogram[10]).isGreaterThan(histogram[100]);
+    }
+
+    @Test
+    @DisplayName("При нулевом показателе число книг распределено равномерно. Должно пройти успешно.")
+    void generate_zeroSkew_isUniform_Test() {
+        DatasetGenerator generator = new DatasetGenerator(DatasetSpec.of(USERS).withBooks(10, 0));
+
+        assertThat(generator.meanBooksPerUser()).isCloseTo(5.0, offset(1e-9));
+    }
+
+    private static List<GeneratedUser> generate(DatasetSpec spec) {
+        List<GeneratedUser> users = new ArrayList<>();
+        new DatasetGenerator(spec).generate(users::add);
+        return users;
+    }
+}
@@ -0,0 +1,50 @@
+package com.edu.ulab.app.dataset;
+
+/**
+ * Параметры синтетического набора пользователей и книг.
+ *
+ * @param seed            зерно генератора; одинаковые параметры дают одинаковые данные
+ * @param users           число пользователей
+ * @param firstId         первый идентификатор; подряд идут сначала пользователи, затем книги
+ * @param maxBooksPerUser максимум книг у одного пользователя
+ * @param booksSkew       показатель Zipf для числа книг: P(k) ~ 1 / (k + 1)^s, при 0 распределение равномерное
+ * @param minLength       минимальная длина строк
+ * @param maxLength       максимальная длина строк, не больше {@link #COLUMN_LENGTH}
+ */
+public record DatasetSpec(long seed,
+                          int users,
+                          long firstId,
+                          int maxBooksPerUser,
+                          double booksSkew,
+                          int minLength,
+                          int maxLength) {
+    /**
+     * Длина varchar-колонок таблиц person и book.
+     */
+    public static final int COLUMN_LENGTH = 50;
+    /**
+     * Выше идентификаторов из sql-скриптов тестов.
+     */
+    public static final long DEFAULT_FIRST_ID = 1_000_000;
+
+    public DatasetSpec {
+        if (users < 0 || maxBooksPerUser < 0 || booksSkew < 0) {
+            throw new IllegalArgumentException("users, maxBooksPerUser and booksSkew must not be negative");
+        }
+        if (firstId <= 0) {
+            throw new IllegalArgumentException("firstId must be positive: " + firstId);
+        }
+        if (minLength <= 0 || minLength > maxLength || maxLength > COLUMN_LENGTH) {
+            throw new IllegalArgumentException("Expected 0 < minLength <= maxLength <= " + COLUMN_LENGTH
+                    + ", got " + minLength + ".." + maxLength);
+        }
+    }
+
+    public static DatasetSpec of(int users) {
+        return new DatasetSpec(42, users, DEFAULT_FIRST_ID, 100, 1.1, 5, COLUMN_LENGTH);
+    }
+
+    public DatasetSpec withBooks(int maxBooksPerUser, double booksSkew) {
+        return new DatasetSpec(seed, users, firstId, maxBooksPerUser, booksSkew, minLength, maxLength);
+    }
+}
@@ -0,0 +1,113 @@
+package com.edu.ulab.app.dataset;
+
+import com.edu.ulab.app.dataset.DatasetGenerator.DatasetSummary;
+import com.edu.ulab.app.dataset.DatasetGenerator.GeneratedUser;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Загрузка набора данных в ulab_edu.person и ulab_edu.book через {@code COPY FROM STDIN}.
+ * Пользователи и книги пишутся двумя проходами генератора: одно соединение ведёт только один COPY.
+ */
+@Slf4j
+public class PostgresDatasetLoader {
+    private static final String COPY_PERSON =
+            "COPY ulab_edu.person (id, full_name, title, age, count) FROM STDIN WITH (FORMAT csv)";
+    private static final String COPY_BOOK =
+            "COPY ulab_edu.book (id, person_id, title, author, page_count) FROM STDIN WITH (FORMAT csv)";
+    /**
+     * allocationSize генератора "sequence" в Person и Book.
+     */
+    private static final int ALLOCATION_SIZE = 100;
+    private static final int FLUSH_SIZE = 1 << 16;
+
+    private PostgresDatasetLoader() {
+    }
+
+    public static DatasetSummary load(DataSource dataSource, DatasetSpec spec) throws SQLException {
+        DatasetGenerator generator = new DatasetGenerator(spec);
+        long start = System.nanoTime();
+        DatasetSummary summary;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                copy(copyManager, COPY_PERSON, generator, (user, rows) -> row(rows,
+                        user.id(), user.fullName(), user.title(), user.age(), 0));
+                summary = copy(copyManager, COPY_BOOK, generator, (user, rows) -> user.books().forEach(book -> row(rows,
+                        book.id(), book.userId(), book.title(), book.author(), book.pageCount())));
+                try (Statement statement = connection.createStatement()) {
+                    // use-new-id-generator-mappings: false - hilo, id = nextval * allocationSize + lo
+                    statement.execute("select setval('sequence', " + summary.maxId() / ALLOCATION_SIZE + ")");
+                    statement.execute("analyze ulab_edu.person");
+                    statement.execute("analyze ulab_edu.book");
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        log.info("Loaded {} users and {} books in {} ms", summary.users(), summary.books(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return summary;
+    }
+
+    private static DatasetSummary copy(CopyManager copyManager, String sql, DatasetGenerator generator,
+                                       BiConsumer<GeneratedUser, StringBuilder> rowWriter) throws SQLException {
+        CopyIn copyIn = copyManager.copyIn(sql);
+        try {
+            StringBuilder rows = new StringBuilder(FLUSH_SIZE * 2);
+            DatasetSummary summary = generator.generate(user -> {
+                rowWriter.accept(user, rows);
+                if (rows.length() >= FLUSH_SIZE) {
+                    flush(copyIn, rows);
+                }
+            });
+            flush(copyIn, rows);
+            copyIn.endCopy();
+            return summary;
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder rows) {
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY failed", e);
+        }
+        rows.setLength(0);
+    }
+
+    private static void row(StringBuilder rows, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                rows.append(',');
+            }
+            if (values[i] instanceof String value) {
+                rows.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                rows.append(values[i]);
+            }
+        }
+        rows.append('\n');
+    }
+}
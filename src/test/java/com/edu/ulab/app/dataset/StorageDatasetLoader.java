@@ -0,0 +1,31 @@
+package com.edu.ulab.app.dataset;
+
+import com.edu.ulab.app.dataset.DatasetGenerator.GeneratedBook;
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.storage.UserRecord;
+
+/**
+ * Загрузка набора данных в {@link Storage}.
+ * Идентификаторы выдаёт сам Storage (в них закодирован сегмент), поэтому id из генератора не сохраняются.
+ */
+public class StorageDatasetLoader {
+
+    private StorageDatasetLoader() {
+    }
+
+    /**
+     * @return идентификаторы созданных пользователей в порядке генерации
+     */
+    public static long[] load(Storage storage, DatasetSpec spec) {
+        long[] userIds = new long[spec.users()];
+        int[] index = new int[1];
+        new DatasetGenerator(spec).generate(user -> {
+            UserRecord created = storage.createUser(user.fullName(), user.title(), user.age());
+            for (GeneratedBook book : user.books()) {
+                storage.createBook(created.id(), book.title(), book.author(), book.pageCount());
+            }
+            userIds[index[0]++] = created.id();
+        });
+        return userIds;
+    }
+}
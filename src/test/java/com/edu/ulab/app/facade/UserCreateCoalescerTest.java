@@ -0,0 +1,196 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.transaction.StorageTransactionManager;
+import com.edu.ulab.app.transaction.TransactionMetrics;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестирование функционала {@link UserCreateCoalescer}.
+ */
+@DisplayName("Testing user create coalescer.")
+public class UserCreateCoalescerTest {
+    private static final int REQUESTS = 8;
+
+    UserDataFacade userDataFacade;
+    SimpleMeterRegistry meterRegistry;
+    UserCreateCoalescer coalescer;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        userDataFacade = mock(UserDataFacade.class);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(REQUESTS);
+        when(userDataFacade.createUserWithBooks(any())).thenAnswer(invocation -> response(invocation.getArgument(0)));
+        when(userDataFacade.createUsersWithBooks(anyList())).thenAnswer(invocation -> {
+            List<UserBookRequest> requests = invocation.getArgument(0);
+            return requests.stream()
+                    .map(UserCreateCoalescerTest::response)
+                    .toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        coalescer.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Выключенный создаёт пользователя напрямую через фасад. Должно пройти успешно.")
+    void createUserWithBooks_disabled_Test() {
+        //Given
+        coalescer = createCoalescer(false, Duration.ofSeconds(1));
+
+        //When
+        UserBookResponse response = coalescer.createUserWithBooks(request(1));
+
+        //Then
+        assertEquals(1L, response.getUserId());
+        verify(userDataFacade).createUserWithBooks(any());
+        verify(userDataFacade, never()).createUsersWithBooks(anyList());
+    }
+
+    @Test
+    @DisplayName("Одновременные запросы сохраняются одной пачкой, каждый получает свой ответ. Должно пройти успешно.")
+    void createUserWithBooks_batchesConcurrentRequests_Test() throws Exception {
+        //Given
+        coalescer = createCoalescer(true, Duration.ofSeconds(5));
+
+        //When
+        List<Future<UserBookResponse>> responses = submitAll();
+
+        //Then
+        for (int i = 0; i < REQUESTS; i++) {
+            assertEquals(i, responses.get(i).get(5, TimeUnit.SECONDS).getUserId());
+        }
+        verify(userDataFacade, times(1)).createUsersWithBooks(anyList());
+        verify(userDataFacade, never()).createUserWithBooks(any());
+        assertEquals(REQUESTS, meterRegistry.get("user.create.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Неполная пачка сохраняется по истечении max-wait. Должно пройти успешно.")
+    void createUserWithBooks_flushesAfterMaxWait_Test() {
+        //Given
+        coalescer = createCoalescer(true, Duration.ofMillis(5));
+
+        //When
+        UserBookResponse response = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> coalescer.createUserWithBooks(request(3)));
+
+        //Then
+        assertEquals(3L, response.getUserId());
+        verify(userDataFacade).createUsersWithBooks(List.of(request(3)));
+    }
+
+    @Test
+    @DisplayName("Ошибка одного запроса не роняет остальные запросы пачки. Должно пройти успешно.")
+    void createUserWithBooks_isolatesFailure_Test() throws Exception {
+        //Given
+        coalescer = createCoalescer(true, Duration.ofSeconds(5));
+        doThrow(new IllegalStateException("duplicate title")).when(userDataFacade).createUsersWithBooks(anyList());
+        doThrow(new IllegalStateException("duplicate title")).when(userDataFacade).createUserWithBooks(request(5));
+
+        //When
+        List<Future<UserBookResponse>> responses = submitAll();
+
+        //Then
+        for (int i = 0; i < REQUESTS; i++) {
+            Future<UserBookResponse> response = responses.get(i);
+            if (i == 5) {
+                ExecutionException exception = assertThrows(ExecutionException.class,
+                        () -> response.get(5, TimeUnit.SECONDS));
+                assertThat(exception.getCause()).isInstanceOf(IllegalStateException.class);
+            } else {
+                assertEquals(i, response.get(5, TimeUnit.SECONDS).getUserId());
+            }
+        }
+        verify(userDataFacade, times(REQUESTS)).createUserWithBooks(any());
+        assertEquals(1, meterRegistry.get("user.create.batch.isolated").counter().count());
+    }
+
+    @Test
+    @DisplayName("Без отката транзакций пачка не повторяется по одному, ошибку получают все. Должно пройти успешно.")
+    void createUserWithBooks_noRollback_failsWholeBatch_Test() throws Exception {
+        //Given
+        TransactionMetrics transactionMetrics = new TransactionMetrics(meterRegistry);
+        coalescer = createCoalescer(true, Duration.ofSeconds(5), new StorageTransactionManager(transactionMetrics));
+        doThrow(new IllegalStateException("duplicate title")).when(userDataFacade).createUsersWithBooks(anyList());
+
+        //When
+        List<Future<UserBookResponse>> responses = submitAll();
+
+        //Then
+        for (Future<UserBookResponse> response : responses) {
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> response.get(5, TimeUnit.SECONDS));
+            assertThat(exception.getCause()).isInstanceOf(IllegalStateException.class);
+        }
+        verify(userDataFacade, never()).createUserWithBooks(any());
+        assertEquals(0, meterRegistry.get("user.create.batch.isolated").counter().count());
+    }
+
+    private UserCreateCoalescer createCoalescer(boolean enabled, Duration maxWait) {
+        return createCoalescer(enabled, maxWait, mock(PlatformTransactionManager.class));
+    }
+
+    private UserCreateCoalescer createCoalescer(boolean enabled, Duration maxWait,
+                                                PlatformTransactionManager transactionManager) {
+        UserCreateCoalescer created = new UserCreateCoalescer(userDataFacade, enabled, REQUESTS, maxWait,
+                100, 1, transactionManager, new TransactionMetrics(meterRegistry), meterRegistry);
+        created.start();
+        return created;
+    }
+
+    private List<Future<UserBookResponse>> submitAll() {
+        List<Future<UserBookResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            UserBookRequest request = request(i);
+            responses.add(executor.submit(() -> coalescer.createUserWithBooks(request)));
+        }
+        return responses;
+    }
+
+    private static UserBookRequest request(int index) {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setFullName("User " + index);
+        userRequest.setTitle("reader " + index);
+        userRequest.setAge(index);
+
+        UserBookRequest request = new UserBookRequest();
+        request.setUserRequest(userRequest);
+        request.setBookRequests(List.of());
+        return request;
+    }
+
+    private static UserBookResponse response(UserBookRequest request) {
+        return UserBookResponse.builder()
+                .userId((long) request.getUserRequest().getAge())
+                .booksIdList(List.of())
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.edu.ulab.app.idempotency;
+
+import com.edu.ulab.app.exception.BadRequestException;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестирование функционала {@link IdempotencyStore}.
+ */
+@DisplayName("Testing idempotency store.")
+public class IdempotencyStoreTest {
+    IdempotentRequestRepository repository;
+    IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotentRequestRepository.class);
+        store = createStore(null);
+    }
+
+    @Test
+    @DisplayName("Повтор запроса получает первый ответ без повторного выполнения. Должно пройти успешно.")
+    void execute_replaysResponse_Test() {
+        //Given
+        AtomicInteger calls = new AtomicInteger();
+
+        //When
+        UserBookResponse first = store.execute("rq-1", () -> response(calls.incrementAndGet()));
+        UserBookResponse retry = store.execute("rq-1", () -> response(calls.incrementAndGet()));
+        UserBookResponse other = store.execute("rq-2", () -> response(calls.incrementAndGet()));
+
+        //Then
+        assertSame(first, retry);
+        assertEquals(2L, other.getUserId());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Одновременный повтор ждёт завершения первого запроса. Должно пройти успешно.")
+    void execute_holdsConcurrentDuplicate_Test() throws Exception {
+        //Given
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        //When
+        Future<UserBookResponse> first = executor.submit(() -> store.execute("rq-1", () -> {
+            started.countDown();
+            await(release);
+            return response(calls.incrementAndGet());
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<UserBookResponse> duplicate = executor.submit(() -> store.execute("rq-1",
+                () -> response(calls.incrementAndGet())));
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        //Then
+        assertSame(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Неудачное выполнение не запоминается, повтор выполняется заново. Должно пройти успешно.")
+    void execute_doesNotCacheFailure_Test() {
+        //When
+        assertThrows(IllegalStateException.class, () -> store.execute("rq-1", () -> {
+            throw new IllegalStateException("write failed");
+        }));
+        UserBookResponse retry = store.execute("rq-1", () -> response(7L));
+
+        //Then
+        assertEquals(7L, retry.getUserId());
+    }
+
+    @Test
+    @DisplayName("Сохранённый в таблице ответ возвращается без выполнения, новый ответ сохраняется. Должно пройти успешно.")
+    void execute_usesPersistedResponse_Test() {
+        //Given
+        store = createStore(repository);
+        UserBookResponse persisted = response(5L);
+        when(repository.find(eq("rq-1"), any())).thenReturn(Optional.of(persisted));
+        when(repository.find(eq("rq-2"), any())).thenReturn(Optional.empty());
+        AtomicInteger calls = new AtomicInteger();
+
+        //When
+        UserBookResponse restored = store.execute("rq-1", () -> response(calls.incrementAndGet()));
+        UserBookResponse executed = store.execute("rq-2", () -> response(calls.incrementAndGet()));
+
+        //Then
+        assertSame(persisted, restored);
+        assertEquals(1, calls.get());
+        verify(repository).save("rq-2", executed);
+        verify(repository, never()).save(eq("rq-1"), any());
+    }
+
+    @Test
+    @DisplayName("Слишком длинный идентификатор запроса отклоняется. Должно пройти успешно.")
+    void execute_rejectsLongRequestId_Test() {
+        String requestId = "r".repeat(IdempotencyStore.MAX_REQUEST_ID_LENGTH + 1);
+
+        assertThrows(BadRequestException.class, () -> store.execute(requestId, () -> response(1L)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private IdempotencyStore createStore(IdempotentRequestRepository repository) {
+        ObjectProvider<IdempotentRequestRepository> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(repository);
+        return new IdempotencyStore(100, Duration.ofMinutes(1), Duration.ofSeconds(5), provider,
+                new SimpleMeterRegistry());
+    }
+
+    private static UserBookResponse response(long userId) {
+        return UserBookResponse.builder()
+                .userId(userId)
+                .booksIdList(List.of(userId * 10))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -8,12 +8,19 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static com.vladmihalcea.sql.SQLStatementCountValidator.*;
@@ -24,10 +31,16 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 @SystemJpaTest
 public class BookRepositoryTest {
+    private static final int JDBC_BATCH_SIZE = 50;
+
     @Autowired
     BookRepository bookRepository;
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
 
     @BeforeEach
     void setUp() {
@@ -180,6 +193,97 @@ public class BookRepositoryTest {
         assertDeleteCount(0);
     }
 
+    @DisplayName("Получить id книг пользователя с тысячами книг. Число select должно равняться 1")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql",
+            "classpath:sql/4_insert_many_books_data.sql"
+    })
+    void get_bookIds_byPersonId_thenAssertDmlCount() {
+        //Given
+        long personId = 1001L;
+
+        //When
+        List<Long> bookIds = bookRepository.findIdsByPersonId(personId);
+
+        //Then
+        assertThat(bookIds).hasSize(10_002);
+        assertThat(bookIds).isSorted();
+        assertThat(bookIds).startsWith(2002L, 3003L, 100_000L);
+        assertSelectCount(1);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "explain select b.id from ulab_edu.book b where b.person_id = " + personId + " order by b.id",
+                String.class));
+        assertThat(plan).contains("idx_ulab_edu_book_person_id_id");
+    }
+
+    @DisplayName("Страница книг по курсору на любой глубине. Число select должно равняться 1")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql",
+            "classpath:sql/4_insert_many_books_data.sql"
+    })
+    void get_booksPage_byPersonId_thenAssertDmlCount() {
+        //Given
+        long personId = 1001L;
+
+        //When
+        List<Book> firstPage = bookRepository.findPageByPersonId(personId, 0L, PageRequest.of(0, 3));
+        List<Book> deepPage = bookRepository.findPageByPersonId(personId, 109_990L, PageRequest.of(0, 100));
+
+        //Then
+        assertThat(firstPage).extracting(Book::getId).containsExactly(2002L, 3003L, 100_000L);
+        assertThat(deepPage).extracting(Book::getId).hasSize(9).startsWith(109_991L).isSorted();
+        assertSelectCount(2);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "explain select b.id from ulab_edu.book b where b.person_id = " + personId
+                        + " and b.id > 109990 order by b.id limit 100",
+                String.class));
+        assertThat(plan).contains("idx_ulab_edu_book_person_id_id").doesNotContain("Sort");
+    }
+
+    @DisplayName("Получить id книг пачки пользователей. Число select должно равняться 1")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql",
+            "classpath:sql/4_insert_many_books_data.sql"
+    })
+    void get_bookIds_byPersonIds_thenAssertDmlCount() {
+        //Given
+        List<Long> personIds = new ArrayList<>();
+        for (long id = 5001; id <= 5100; id++) {
+            personIds.add(id);
+        }
+
+        //When
+        List<BookRepository.BookIdView> books = bookRepository.findIdsByPersonIds(personIds);
+
+        //Then
+        assertThat(books).hasSize(50_000);
+        assertThat(books).extracting(BookRepository.BookIdView::getUserId).isSorted();
+        assertThat(books).filteredOn(book -> book.getUserId() == 5001L).hasSize(500);
+        assertSelectCount(1);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+    }
+
     @DisplayName("Удалить книгу по id. Число select должно равняться 1")
     @Test
     @Rollback
@@ -212,6 +316,33 @@ public class BookRepositoryTest {
         assertDeleteCount(0);
     }
 
+    @DisplayName("Удалить пользователя с 10000 книг. Число delete должно равняться 2")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql",
+            "classpath:sql/4_insert_many_books_data.sql"
+    })
+    void delete_person_withManyBooks_thenAssertDmlCount() {
+        //Given
+        long personId = 1001L;
+
+        //When
+        int deletedBooks = bookRepository.deleteAllByPersonId(personId);
+        int deletedPersons = userRepository.deleteByIdInBulk(personId);
+
+        //Then
+        assertThat(deletedBooks).isEqualTo(10_002);
+        assertThat(deletedPersons).isEqualTo(1);
+        assertSelectCount(0);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from ulab_edu.book where person_id = ?", Long.class, personId)).isZero();
+    }
+
     @DisplayName("Сохранение книги, если нет person. Должно пройти успешно.")
     @Test
     @Rollback
@@ -234,4 +365,65 @@ public class BookRepositoryTest {
             bookRepository.save(book);
         });
     }
+
+    @DisplayName("Сохранить книги по одной. Число insert должно равняться числу книг")
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 200})
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql"
+    })
+    void save_books_oneByOne_thenAssertInsertCount(int bookCount) {
+        //Given
+        List<Book> books = createBooks(userRepository.findById(1001L).get(), bookCount);
+        SQLStatementCountValidator.reset();
+
+        //When
+        books.forEach(book -> {
+            bookRepository.save(book);
+            entityManager.flush();
+        });
+
+        //Then
+        assertInsertCount(bookCount);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+    }
+
+    @DisplayName("Сохранить книги пачкой. Число insert должно равняться числу JDBC батчей")
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 200})
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql"
+    })
+    void saveAll_books_thenAssertBatchedInsertCount(int bookCount) {
+        //Given
+        List<Book> books = createBooks(userRepository.findById(1001L).get(), bookCount);
+        SQLStatementCountValidator.reset();
+
+        //When
+        bookRepository.saveAll(books);
+        entityManager.flush();
+
+        //Then
+        assertInsertCount((bookCount + JDBC_BATCH_SIZE - 1) / JDBC_BATCH_SIZE);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+    }
+
+    private List<Book> createBooks(Person person, int bookCount) {
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            Book book = new Book();
+            book.setAuthor("author " + i);
+            book.setTitle("book " + i);
+            book.setPageCount(100 + i);
+            book.setPerson(person);
+            books.add(book);
+        }
+        return books;
+    }
 }
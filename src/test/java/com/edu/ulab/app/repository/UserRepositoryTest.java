@@ -1,18 +1,31 @@
 package com.edu.ulab.app.repository;
 
 import com.edu.ulab.app.config.SystemJpaTest;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserFilter;
 import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.service.impl.BookServiceImpl;
+import com.edu.ulab.app.service.impl.UserServiceImpl;
 import com.vladmihalcea.sql.SQLStatementCountValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -28,6 +41,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 public class UserRepositoryTest {
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    TestEntityManager entityManager;
 
     @BeforeEach
     void setUp() {
@@ -169,6 +186,35 @@ public class UserRepositoryTest {
         assertDeleteCount(0);
     }
 
+    @DisplayName("Получить юзера с книгами. Число select должно равняться 1")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql",
+            "classpath:sql/4_insert_many_books_data.sql"
+    })
+    void get_personWithBooks_byId_thenAssertDmlCount() {
+        //When
+        Optional<Person> byId = userRepository.findWithBooksById(1001L);
+
+        //Then
+        Set<Book> bookSet = byId.get().getBookSet();
+        assertEquals(10002, bookSet.size());
+        long totalPages = 0;
+        for (Book book : bookSet) {
+            assertEquals(1001L, book.getPerson().getId());
+            assertThat(book.getTitle()).isNotEmpty();
+            assertThat(book.getAuthor()).isNotEmpty();
+            totalPages += book.getPageCount();
+        }
+        assertEquals(5500 + 6655 + 10000 * 100, totalPages);
+        assertSelectCount(1);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+    }
+
     @DisplayName("Удалить юзера. Число select должно равняться 1")
     @Test
     @Rollback
@@ -194,4 +240,91 @@ public class UserRepositoryTest {
         assertUpdateCount(0);
         assertDeleteCount(0);
     }
+
+    @DisplayName("Сбросить счётчики просмотров. Число update должно равняться 1")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql",
+            "classpath:sql/4_insert_many_books_data.sql"
+    })
+    void incrementCounts_thenAssertDmlCount() {
+        //Given
+        Map<Long, Long> viewsByUserId = new HashMap<>();
+        viewsByUserId.put(1001L, 5L);
+        for (long id = 5001; id <= 5100; id++) {
+            viewsByUserId.put(id, id - 5000);
+        }
+
+        //When
+        userRepository.incrementCounts(viewsByUserId);
+
+        //Then
+        assertSelectCount(0);
+        assertInsertCount(0);
+        assertUpdateCount(1);
+        assertDeleteCount(0);
+        assertEquals(6, userRepository.findById(1001L).get().getCount());
+        assertEquals(100, userRepository.findById(5100L).get().getCount());
+    }
+
+    @DisplayName("Страница юзеров по фильтру и курсору. Число select должно равняться 1")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql",
+            "classpath:sql/4_insert_many_books_data.sql"
+    })
+    void findPage_byFilter_thenAssertDmlCount() {
+        //When
+        List<UserDto> firstPage = userRepository.findPage(new UserFilter(20, 40, null), 0L, 3);
+        List<UserDto> nextPage = userRepository.findPage(new UserFilter(20, 40, null), 5003L, 3);
+
+        //Then
+        assertThat(firstPage).extracting(UserDto::getId).containsExactly(5001L, 5002L, 5003L);
+        assertThat(nextPage).extracting(UserDto::getId).containsExactly(5004L, 5005L, 5006L);
+        assertEquals("generated title 5001", firstPage.get(0).getTitle());
+        assertEquals(30, firstPage.get(0).getAge());
+        assertSelectCount(2);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+
+        assertThat(userRepository.findPage(new UserFilter(50, null, null), 0L, 10))
+                .extracting(UserDto::getId).containsExactly(1001L);
+        assertThat(userRepository.findPage(new UserFilter(null, null, "generated title 505"), 0L, 100))
+                .extracting(UserDto::getId).containsExactly(5050L, 5051L, 5052L, 5053L, 5054L, 5055L, 5056L, 5057L, 5058L, 5059L);
+        assertThat(userRepository.findPage(new UserFilter(null, null, "generated_title"), 0L, 100)).isEmpty();
+    }
+
+    @DisplayName("Чтение юзера с id книг для GET /user/get. Число select должно равняться 2, update - 0")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql"
+    })
+    void getUserWithBooks_thenAssertDmlCount() {
+        //Given
+        UserService userService = new UserServiceImpl(userRepository,
+                Mappers.getMapper(UserMapper.class), Mappers.getMapper(BookMapper.class));
+        BookService bookService = new BookServiceImpl(bookRepository, Mappers.getMapper(BookMapper.class),
+                event -> {
+                });
+
+        //When
+        UserDto user = userService.getUserById(1001L);
+        List<Long> bookIds = bookService.getBookByUserId(1001L);
+        entityManager.flush();
+
+        //Then
+        assertEquals("default user", user.getFullName());
+        assertThat(bookIds).containsExactly(2002L, 3003L);
+        assertSelectCount(2);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+    }
 }
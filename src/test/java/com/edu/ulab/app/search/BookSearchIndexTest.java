@@ -0,0 +1,185 @@
+package com.edu.ulab.app.search;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.service.BookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Тестирование функционала {@link BookSearchIndex}.
+ */
+@DisplayName("Testing book search index.")
+public class BookSearchIndexTest {
+    BookService bookService;
+    BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookService = mock(BookService.class);
+        index = new BookSearchIndex(bookService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Индекс строится из всех книг сервиса при старте. Должно пройти успешно.")
+    void start_buildsFromService_Test() {
+        //Given
+        doAnswer(invocation -> {
+            Consumer<BookDto> action = invocation.getArgument(0);
+            action.accept(book(1L, 1L, "War and Peace", "Leo Tolstoy"));
+            action.accept(book(2L, 1L, "Anna Karenina", "Leo Tolstoy"));
+            return null;
+        }).when(bookService).forEachBook(any());
+
+        //When
+        index.start();
+
+        //Then
+        assertTrue(index.isRunning());
+        assertEquals(2, index.size());
+        assertTrue(index.estimatedBytes() > 0);
+        assertEquals(2, index.search("tolst", 0, 10).total());
+    }
+
+    @Test
+    @DisplayName("Поиск по подстроке названия и автора без учёта регистра. Должно пройти успешно.")
+    void search_bySubstring_Test() {
+        //Given
+        index.put(book(1L, 1L, "The Lord of the Rings", "J. R. R. Tolkien"));
+        index.put(book(2L, 1L, "Harry Potter", "J. K. Rowling"));
+        index.put(book(3L, 2L, "Lords and Ladies", "Terry Pratchett"));
+
+        //When
+        BookSearchIndex.SearchResult byTitle = index.search("  LORD  ", 0, 10);
+        BookSearchIndex.SearchResult byAuthor = index.search("olki", 0, 10);
+        BookSearchIndex.SearchResult missing = index.search("dune", 0, 10);
+
+        //Then
+        assertEquals(List.of(3L, 1L), ids(byTitle));
+        assertEquals(List.of(1L), ids(byAuthor));
+        assertEquals(0, missing.total());
+        assertTrue(missing.books().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Короткий запрос ищет только по началу слова. Должно пройти успешно.")
+    void search_shortQueryByWordPrefix_Test() {
+        //Given
+        index.put(book(1L, 1L, "Dune", "Frank Herbert"));
+        index.put(book(2L, 1L, "Hard Times", "Charles Dickens"));
+
+        //When
+        BookSearchIndex.SearchResult result = index.search("he", 0, 10);
+
+        //Then
+        assertEquals(List.of(1L), ids(result));
+        assertEquals(List.of(2L), ids(index.search("t", 0, 10)));
+    }
+
+    @Test
+    @DisplayName("Совпадение в названии выше совпадения в авторе, точное выше подстроки. Должно пройти успешно.")
+    void search_ranksMatches_Test() {
+        //Given
+        index.put(book(1L, 1L, "A Study of Sand", "Anon"));
+        index.put(book(2L, 1L, "Notes", "Sand"));
+        index.put(book(3L, 1L, "Sand", "Anon"));
+        index.put(book(4L, 1L, "Thousand Years", "Anon"));
+        index.put(book(5L, 1L, "Sandman", "Anon"));
+
+        //When
+        BookSearchIndex.SearchResult result = index.search("sand", 0, 10);
+
+        //Then
+        assertEquals(5, result.total());
+        assertEquals(List.of(3L, 2L, 5L, 1L, 4L), ids(result));
+    }
+
+    @Test
+    @DisplayName("Страницы результатов не пересекаются, total считает все совпадения. Должно пройти успешно.")
+    void search_pages_Test() {
+        //Given
+        for (long id = 1; id <= 25; id++) {
+            index.put(book(id, id % 3, "Volume " + id, "Author"));
+        }
+
+        //When
+        BookSearchIndex.SearchResult first = index.search("volume", 0, 10);
+        BookSearchIndex.SearchResult last = index.search("volume", 20, 10);
+        BookSearchIndex.SearchResult beyond = index.search("volume", 30, 10);
+
+        //Then
+        assertEquals(25, first.total());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids(first));
+        assertEquals(List.of(21L, 22L, 23L, 24L, 25L), ids(last));
+        assertEquals(25, beyond.total());
+        assertTrue(beyond.books().isEmpty());
+    }
+
+    @Test
+    @DisplayName("События изменения книг обновляют индекс. Должно пройти успешно.")
+    void onBookChanged_updatesIndex_Test() {
+        //Given
+        index.put(book(1L, 1L, "Old Title", "Author"));
+        index.put(book(2L, 1L, "Second", "Author"));
+        index.put(book(3L, 2L, "Third", "Author"));
+
+        //When
+        index.onBookChanged(new BookChangedEvent.Saved(List.of(book(1L, 1L, "New Title", "Author"))));
+
+        //Then
+        assertEquals(0, index.search("old", 0, 10).total());
+        assertEquals(List.of(1L), ids(index.search("new", 0, 10)));
+
+        index.onBookChanged(new BookChangedEvent.Deleted(2L));
+        assertEquals(0, index.search("second", 0, 10).total());
+
+        index.onBookChanged(new BookChangedEvent.UserBooksDeleted(1L));
+        assertEquals(List.of(3L), ids(index.search("author", 0, 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Объём индекса уменьшается при удалении и восстанавливается при повторном добавлении. Должно пройти успешно.")
+    void estimatedBytes_tracksChanges_Test() {
+        //Given
+        long empty = index.estimatedBytes();
+        index.put(book(1L, 1L, "War and Peace", "Leo Tolstoy"));
+        index.put(book(2L, 2L, "Anna Karenina", "Leo Tolstoy"));
+        long loaded = index.estimatedBytes();
+
+        //When
+        index.remove(2L);
+        long removed = index.estimatedBytes();
+        index.put(book(2L, 2L, "Anna Karenina", "Leo Tolstoy"));
+
+        //Then
+        assertTrue(loaded > empty);
+        assertTrue(removed < loaded);
+        assertEquals(loaded, index.estimatedBytes());
+    }
+
+    private static List<Long> ids(BookSearchIndex.SearchResult result) {
+        return result.books().stream()
+                .map(BookDto::getId)
+                .toList();
+    }
+
+    private static BookDto book(Long id, Long userId, String title, String author) {
+        BookDto book = new BookDto();
+        book.setId(id);
+        book.setUserId(userId);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setPageCount(100);
+        return book;
+    }
+}
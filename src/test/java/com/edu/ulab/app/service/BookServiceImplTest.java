@@ -5,6 +5,7 @@ import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.entity.Person;
 import com.edu.ulab.app.mapper.BookMapper;
 import com.edu.ulab.app.repository.BookRepository;
+import com.edu.ulab.app.search.BookChangedEvent;
 import com.edu.ulab.app.service.impl.BookServiceImpl;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -12,12 +13,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,6 +41,9 @@ public class BookServiceImplTest {
     @Mock
     BookMapper bookMapper;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     @Test
     @DisplayName("Создание книги. Должно пройти успешно.")
     void saveBook_Test() {
@@ -81,6 +87,50 @@ public class BookServiceImplTest {
         //then
         BookDto bookDtoResult = bookService.createBook(bookDto);
         assertEquals(1L, bookDtoResult.getId());
+        verify(eventPublisher).publishEvent(new BookChangedEvent.Saved(List.of(result)));
+    }
+
+    @Test
+    @DisplayName("Создание списка книг одним saveAll. Должно пройти успешно.")
+    void saveBooks_Test() {
+        //given
+        Person person = new Person();
+        person.setId(1L);
+
+        BookDto bookDto = new BookDto();
+        bookDto.setUserId(person.getId());
+        bookDto.setTitle("test title");
+
+        BookDto bookDto2 = new BookDto();
+        bookDto2.setUserId(person.getId());
+        bookDto2.setTitle("test title 2");
+
+        Book book = new Book();
+        book.setTitle("test title");
+        book.setPerson(person);
+
+        Book book2 = new Book();
+        book2.setTitle("test title 2");
+        book2.setPerson(person);
+
+        BookDto result = new BookDto();
+        result.setId(1L);
+
+        BookDto result2 = new BookDto();
+        result2.setId(2L);
+
+        //when
+        when(bookMapper.bookDtoToBook(bookDto)).thenReturn(book);
+        when(bookMapper.bookDtoToBook(bookDto2)).thenReturn(book2);
+        when(bookRepository.saveAll(List.of(book, book2))).thenReturn(List.of(book, book2));
+        when(bookMapper.bookToBookDto(book)).thenReturn(result);
+        when(bookMapper.bookToBookDto(book2)).thenReturn(result2);
+
+        //then
+        List<BookDto> savedBooks = bookService.createBooks(List.of(bookDto, bookDto2));
+        assertIterableEquals(List.of(result, result2), savedBooks);
+        verify(bookRepository).saveAll(List.of(book, book2));
+        verify(bookRepository, never()).save(any());
     }
 
     @Test
@@ -133,6 +183,52 @@ public class BookServiceImplTest {
         verify(bookRepository).save(book);
     }
 
+    @Test
+    @DisplayName("Пакетное обновление книг. Неизменённые книги не сохраняются.")
+    void updateBooks_skipsUnchanged_Test() {
+        //Given
+        Person person = new Person();
+        person.setId(1L);
+
+        Book book = new Book();
+        book.setId(1L);
+        book.setPageCount(1000);
+        book.setTitle("test title");
+        book.setAuthor("test author");
+        book.setPerson(person);
+
+        Book book2 = new Book();
+        book2.setId(2L);
+        book2.setPageCount(800);
+        book2.setTitle("test title 2");
+        book2.setAuthor("test author 2");
+        book2.setPerson(person);
+
+        BookDto unchangedBookDto = new BookDto();
+        unchangedBookDto.setId(1L);
+        unchangedBookDto.setPageCount(1000);
+        unchangedBookDto.setTitle("test title");
+        unchangedBookDto.setAuthor("test author");
+
+        BookDto changedBookDto = new BookDto();
+        changedBookDto.setId(2L);
+        changedBookDto.setPageCount(900);
+        changedBookDto.setTitle("test new title 2");
+        changedBookDto.setAuthor("test author 2");
+
+        //When
+        when(bookRepository.findAllByPersonIdForUpdate(1L, Set.of(1L, 2L))).thenReturn(List.of(book, book2));
+        int modified = bookService.updateBooks(person.getId(), List.of(unchangedBookDto, changedBookDto));
+
+        //Then
+        assertEquals(1, modified);
+        assertEquals("test title", book.getTitle());
+        assertEquals(900, book2.getPageCount());
+        assertEquals("test new title 2", book2.getTitle());
+        verify(bookRepository).saveAll(List.of(book2));
+        verify(bookRepository, never()).findByIdForUpdate(anyLong());
+    }
+
     @Test
     @DisplayName("Обновление книги, если книга null. Должно пройти успешно.")
     void updateBook_if_book_isNull_Test() {
@@ -252,6 +348,7 @@ public class BookServiceImplTest {
         //Then
         bookService.deleteBookById(book.getId());
         verify(bookRepository).deleteById(book.getId());
+        verify(eventPublisher).publishEvent(new BookChangedEvent.Deleted(book.getId()));
     }
 
     @Test
@@ -277,15 +374,14 @@ public class BookServiceImplTest {
 
         List<Long> expected = List.of(1L, 2L);
 
-        Iterable<Book> iterableBook = List.of(book, book2);
-
         //When
-        when(bookRepository.findAllById(Collections.singleton(1L))).thenReturn(iterableBook);
+        when(bookRepository.findIdsByPersonId(1L)).thenReturn(List.of(book.getId(), book2.getId()));
 
         //Then
         List<Long> actual = bookService.getBookByUserId(person.getId());
         assertIterableEquals(expected, actual);
-        verify(bookRepository).findAllById(Collections.singleton(1L));
+        verify(bookRepository).findIdsByPersonId(1L);
+        verify(bookRepository, never()).findAllById(any());
     }
 
     @Test
@@ -305,6 +401,39 @@ public class BookServiceImplTest {
 
         //Then
         bookService.deleteBookByPerson_id(person.getId());
-        verify(bookRepository).deleteByPerson_Id(person.getId());
+        verify(bookRepository).deleteAllByPersonId(person.getId());
+        verify(bookRepository, never()).findIdsByPersonId(anyLong());
+        verify(eventPublisher).publishEvent(new BookChangedEvent.UserBooksDeleted(person.getId()));
+    }
+
+    @Test
+    @DisplayName("Получение id книг пачки пользователей группирует их по userId. Должно пройти успешно.")
+    void getBookIdsByUserIds_Test() {
+        //Given
+        List<Long> userIds = List.of(1L, 2L, 3L);
+
+        //When
+        when(bookRepository.findIdsByPersonIds(userIds)).thenReturn(List.of(
+                bookIdView(1L, 10L), bookIdView(1L, 11L), bookIdView(3L, 30L)));
+
+        //Then
+        Map<Long, List<Long>> actual = bookService.getBookIdsByUserIds(userIds);
+        assertEquals(Map.of(1L, List.of(10L, 11L), 3L, List.of(30L)), actual);
+        verify(bookRepository).findIdsByPersonIds(userIds);
+        verify(bookRepository, never()).findIdsByPersonId(anyLong());
+    }
+
+    private static BookRepository.BookIdView bookIdView(Long userId, Long id) {
+        return new BookRepository.BookIdView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getId() {
+                return id;
+            }
+        };
     }
 }
@@ -218,6 +218,7 @@ public class UserServiceImplTest {
 
         //Then
         userService.deleteUserById(person.getId());
-        verify(userRepository).deleteById(person.getId());
+        verify(userRepository).deleteByIdInBulk(person.getId());
+        verify(userRepository, never()).findById(any());
     }
 }
@@ -0,0 +1,164 @@
+package com.edu.ulab.app.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тестирование восстановления {@link Storage} из журнала и снимков.
+ */
+@DisplayName("Testing storage journal and snapshot recovery.")
+public class StorageRecoveryTest {
+    private static final int JOURNAL_FILE_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Операции из журнала восстанавливаются после перезапуска. Должно пройти успешно.")
+    void reopen_replaysJournal_Test() throws IOException {
+        UserRecord user;
+        BookRecord kept;
+        BookRecord deleted;
+        try (Storage storage = open(FsyncPolicy.ALWAYS)) {
+            user = storage.createUser("Test Test", "reader", 30);
+            kept = storage.createBook(user.id(), "kept", "author", 100);
+            deleted = storage.createBook(user.id(), "deleted", "author", 200);
+            storage.updateUser(user.id(), "New Name", "writer", 31);
+            storage.addUserCount(user.id(), 3);
+            storage.deleteBook(deleted.id());
+        }
+
+        try (Storage storage = open(FsyncPolicy.ALWAYS)) {
+            assertEquals(new UserRecord(user.id(), "New Name", "writer", 31, 3), storage.findUser(user.id()).orElseThrow());
+            assertArrayEquals(new long[]{kept.id()}, storage.findBookIds(user.id()));
+            assertThat(storage.createUser("Next", "reader", 20).id()).isNotIn(user.id(), kept.id(), deleted.id());
+        }
+    }
+
+    @Test
+    @DisplayName("Снимок заменяет старые файлы журнала, хвост журнала проигрывается поверх. Должно пройти успешно.")
+    void snapshot_thenJournalTail_Test() throws IOException {
+        List<Long> userIds = new ArrayList<>();
+        try (Storage storage = open(FsyncPolicy.NONE)) {
+            for (int i = 0; i < 200; i++) {
+                UserRecord user = storage.createUser("User " + i, "reader", 20);
+                storage.createBook(user.id(), "Book " + i, "author", i);
+                userIds.add(user.id());
+            }
+            assertThat(journalFiles()).hasSizeGreaterThan(1);
+
+            storage.snapshot();
+            assertEquals(1, journalFiles().size());
+
+            storage.deleteUser(userIds.get(0));
+            storage.createBook(userIds.get(1), "After snapshot", "author", 1);
+        }
+
+        try (Storage storage = open(FsyncPolicy.NONE)) {
+            assertEquals(199, storage.userCount());
+            assertEquals(200, storage.bookCount());
+            assertTrue(storage.findUser(userIds.get(0)).isEmpty());
+            assertEquals(2, storage.findBookIds(userIds.get(1)).length);
+        }
+    }
+
+    @Test
+    @DisplayName("Оборванная запись в конце журнала отбрасывается. Должно пройти успешно.")
+    void tornTail_isDiscarded_Test() throws IOException {
+        UserRecord user;
+        try (Storage storage = open(FsyncPolicy.ALWAYS)) {
+            user = storage.createUser("Test Test", "reader", 30);
+            storage.createBook(user.id(), "title", "author", 100);
+        }
+        Path journal = journalFiles().get(0);
+        long end = endOfRecords(journal);
+        try (RandomAccessFile file = new RandomAccessFile(journal.toFile(), "rw")) {
+            file.seek(end);
+            file.writeInt(64);
+            file.writeInt(12345);
+            file.writeLong(3);
+        }
+
+        try (Storage storage = open(FsyncPolicy.ALWAYS)) {
+            assertEquals(1, storage.findBookIds(user.id()).length);
+            storage.createBook(user.id(), "after crash", "author", 100);
+        }
+        try (Storage storage = open(FsyncPolicy.ALWAYS)) {
+            assertEquals(2, storage.findBookIds(user.id()).length);
+        }
+    }
+
+    @Test
+    @DisplayName("Параллельные записи с групповым коммитом не теряются. Должно пройти успешно.")
+    void groupCommit_concurrentWrites_Test() throws Exception {
+        int threads = 8;
+        int usersPerThread = 100;
+        try (Storage storage = open(FsyncPolicy.GROUP)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    tasks.add(() -> {
+                        for (int j = 0; j < usersPerThread; j++) {
+                            UserRecord user = storage.createUser("User", "reader", j);
+                            storage.createBook(user.id(), "title", "author", j);
+                        }
+                        return null;
+                    });
+                }
+                for (Future<Void> future : executor.invokeAll(tasks)) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        try (Storage storage = open(FsyncPolicy.GROUP)) {
+            assertEquals(threads * usersPerThread, storage.userCount());
+            assertEquals(threads * usersPerThread, storage.bookCount());
+        }
+    }
+
+    private Storage open(FsyncPolicy fsyncPolicy) throws IOException {
+        return Storage.open(directory, fsyncPolicy, JOURNAL_FILE_SIZE);
+    }
+
+    private List<Path> journalFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long endOfRecords(Path journal) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(journal.toFile(), "r")) {
+            long position = 0;
+            int length;
+            while ((length = file.readInt()) != 0) {
+                position += Integer.BYTES * 2 + length;
+                file.seek(position);
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.edu.ulab.app.storage;
+
+import com.edu.ulab.app.exception.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тестирование функционала {@link Storage}.
+ */
+@DisplayName("Testing in-memory storage.")
+public class StorageTest {
+    Storage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new Storage();
+    }
+
+    @Test
+    @DisplayName("Сохранение и поиск пользователя. Должно пройти успешно.")
+    void createUser_Test() {
+        UserRecord user = storage.createUser("Test Test", "reader", 30);
+
+        assertThat(user.id()).isPositive();
+        assertEquals(user, storage.findUser(user.id()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Страница пользователей по фильтру после заданного id. Должно пройти успешно.")
+    void findUsersAfter_Test() {
+        List<UserRecord> readers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            UserRecord user = storage.createUser("User " + i, i % 2 == 0 ? "reader" : "writer", 20 + i % 50);
+            if (i % 2 == 0) {
+                readers.add(user);
+            }
+        }
+        readers.sort(Comparator.comparingLong(UserRecord::id));
+
+        List<UserRecord> firstPage = storage.findUsersAfter(user -> user.title().equals("reader"), 0, 30);
+        List<UserRecord> lastPage = storage.findUsersAfter(user -> user.title().equals("reader"),
+                readers.get(89).id(), 30);
+
+        assertEquals(readers.subList(0, 30), firstPage);
+        assertEquals(readers.subList(90, 100), lastPage);
+    }
+
+    @Test
+    @DisplayName("Книги пользователя возвращаются по возрастанию id. Должно пройти успешно.")
+    void findBookIds_Test() {
+        UserRecord user = storage.createUser("Test Test", "reader", 30);
+        BookRecord first = storage.createBook(user.id(), "first", "author", 100);
+        BookRecord second = storage.createBook(user.id(), "second", "author", 200);
+        storage.createBook(storage.createUser("Other", "reader", 40).id(), "other", "author", 300);
+
+        assertArrayEquals(new long[]{first.id(), second.id()}, storage.findBookIds(user.id()));
+        assertEquals(user.id(), storage.findBook(first.id()).orElseThrow().userId());
+    }
+
+    @Test
+    @DisplayName("Книги пользователя целиком возвращаются по возрастанию id. Должно пройти успешно.")
+    void findBooks_Test() {
+        UserRecord user = storage.createUser("Test Test", "reader", 30);
+        BookRecord first = storage.createBook(user.id(), "first", "author", 100);
+        BookRecord second = storage.createBook(user.id(), "second", "author", 200);
+
+        assertEquals(List.of(first, second), storage.findBooks(user.id()));
+        assertEquals(List.of(), storage.findBooks(42L));
+    }
+
+    @Test
+    @DisplayName("Страница книг после заданного id. Должно пройти успешно.")
+    void findBooksAfter_Test() {
+        UserRecord user = storage.createUser("Test Test", "reader", 30);
+        List<BookRecord> books = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            books.add(storage.createBook(user.id(), "book " + i, "author", 100 + i));
+        }
+
+        assertEquals(books.subList(0, 2), storage.findBooksAfter(user.id(), 0, 2));
+        assertEquals(books.subList(2, 4), storage.findBooksAfter(user.id(), books.get(1).id(), 2));
+        assertEquals(books.subList(4, 5), storage.findBooksAfter(user.id(), books.get(3).id(), 2));
+        assertEquals(List.of(), storage.findBooksAfter(user.id(), books.get(4).id(), 2));
+    }
+
+    @Test
+    @DisplayName("Книга для несуществующего пользователя. Должно выбросить NotFoundException.")
+    void createBook_unknownUser_Test() {
+        assertThrows(NotFoundException.class, () -> storage.createBook(42L, "title", "author", 100));
+    }
+
+    @Test
+    @DisplayName("Обновление книги и пользователя. Должно пройти успешно.")
+    void update_Test() {
+        UserRecord user = storage.createUser("Test Test", "reader", 30);
+        BookRecord book = storage.createBook(user.id(), "title", "author", 100);
+
+        storage.updateUser(user.id(), "New Name", "writer", 31);
+        storage.updateBook(book.id(), "new title", "new author", 200);
+        storage.addUserCount(user.id(), 5);
+
+        assertEquals(new UserRecord(user.id(), "New Name", "writer", 31, 5), storage.findUser(user.id()).orElseThrow());
+        assertEquals(new BookRecord(book.id(), user.id(), "new title", "new author", 200),
+                storage.findBook(book.id()).orElseThrow());
+        assertTrue(storage.updateUser(-1L, "x", "x", 1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя удаляет его книги. Должно пройти успешно.")
+    void deleteUser_cascadesBooks_Test() {
+        UserRecord user = storage.createUser("Test Test", "reader", 30);
+        BookRecord book = storage.createBook(user.id(), "title", "author", 100);
+
+        assertTrue(storage.deleteUser(user.id()));
+
+        assertTrue(storage.findUser(user.id()).isEmpty());
+        assertTrue(storage.findBook(book.id()).isEmpty());
+        assertEquals(0, storage.findBookIds(user.id()).length);
+        assertFalse(storage.deleteUser(user.id()));
+    }
+
+    @Test
+    @DisplayName("Удаление книги убирает её из индекса пользователя. Должно пройти успешно.")
+    void deleteBook_updatesIndex_Test() {
+        UserRecord user = storage.createUser("Test Test", "reader", 30);
+        BookRecord first = storage.createBook(user.id(), "first", "author", 100);
+        BookRecord second = storage.createBook(user.id(), "second", "author", 200);
+
+        assertTrue(storage.deleteBook(first.id()));
+
+        assertArrayEquals(new long[]{second.id()}, storage.findBookIds(user.id()));
+        assertEquals(1, storage.deleteBooks(user.id()));
+        assertEquals(0, storage.bookCount());
+    }
+
+    @Test
+    @DisplayName("Параллельное создание книг не теряет записи и не дублирует id.")
+    void concurrentCreate_Test() throws Exception {
+        int threads = 8;
+        int booksPerThread = 1_000;
+        List<UserRecord> users = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            users.add(storage.createUser("User " + i, "reader", 20 + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (UserRecord user : users) {
+                tasks.add(() -> {
+                    for (int j = 0; j < booksPerThread; j++) {
+                        storage.createBook(user.id(), "title " + j, "author", j);
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * booksPerThread, storage.bookCount());
+        for (UserRecord user : users) {
+            assertEquals(booksPerThread, storage.findBookIds(user.id()).length);
+        }
+    }
+}
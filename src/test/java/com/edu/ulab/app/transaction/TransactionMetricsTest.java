@@ -0,0 +1,173 @@
+package com.edu.ulab.app.transaction;
+
+import com.edu.ulab.app.cache.UserBookCache;
+import com.edu.ulab.app.concurrent.StripedUserLock;
+import com.edu.ulab.app.counter.UserViewCounter;
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.service.impl.StorageBookServiceImpl;
+import com.edu.ulab.app.service.impl.StorageUserServiceImpl;
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестирование функционала {@link TransactionMetrics}.
+ */
+@DisplayName("Testing transaction metrics.")
+public class TransactionMetricsTest {
+    private static final int BOOKS = 5;
+
+    SimpleMeterRegistry meterRegistry;
+    TransactionMetrics transactionMetrics;
+    UserService userService;
+    BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionMetrics = new TransactionMetrics(meterRegistry);
+        Storage storage = new Storage();
+        userService = new StorageUserServiceImpl(storage);
+        bookService = new StorageBookServiceImpl(storage, event -> {
+        });
+    }
+
+    @Test
+    @DisplayName("Создание пользователя с книгами - один коммит на запрос. Должно пройти успешно.")
+    void createUserWithBooks_oneCommitPerRequest_Test() {
+        //Given
+        UserDataFacade facade = createFacade(bookService);
+
+        //When
+        transactionMetrics.beginRequest();
+        UserBookResponse response = facade.createUserWithBooks(request());
+        transactionMetrics.endRequest();
+
+        //Then
+        assertEquals(BOOKS, response.getBooksIdList().size());
+        assertEquals(1, commits("false"));
+        assertEquals(0, commits("true"));
+        assertCommitsPerRequest(1);
+    }
+
+    @Test
+    @DisplayName("Чтение пользователя выполняется в транзакции только для чтения. Должно пройти успешно.")
+    void getUserWithBooks_readOnlyCommit_Test() {
+        //Given
+        UserDataFacade facade = createFacade(bookService);
+        Long userId = facade.createUserWithBooks(request()).getUserId();
+
+        //When
+        transactionMetrics.beginRequest();
+        facade.getUserWithBooks(userId);
+        transactionMetrics.endRequest();
+
+        //Then
+        assertEquals(1, commits("false"));
+        assertEquals(1, commits("true"));
+        assertCommitsPerRequest(1);
+    }
+
+    @Test
+    @DisplayName("Ошибка сохранения книг откатывает транзакцию без коммита. Должно пройти успешно.")
+    void createUserWithBooks_failureRollsBack_Test() {
+        //Given
+        BookService failingBookService = mock(BookService.class);
+        when(failingBookService.createBooks(anyList())).thenThrow(new IllegalStateException("write failed"));
+        UserDataFacade facade = createFacade(failingBookService);
+
+        //When
+        transactionMetrics.beginRequest();
+        assertThrows(IllegalStateException.class, () -> facade.createUserWithBooks(request()));
+        transactionMetrics.endRequest();
+
+        //Then
+        assertEquals(0, commits("false"));
+        assertEquals(1, meterRegistry.get("transaction.rollbacks").counter().count());
+        assertCommitsPerRequest(0);
+    }
+
+    @Test
+    @DisplayName("Коммит, сделанный другим потоком за запрос, засчитывается запросу. Должно пройти успешно.")
+    void countCommitsFor_creditsWaitingRequest_Test() throws Exception {
+        //Given
+        UserDataFacade facade = createFacade(bookService);
+        transactionMetrics.beginRequest();
+        TransactionMetrics.RequestCommits request = transactionMetrics.currentRequest();
+
+        //When
+        CompletableFuture.supplyAsync(() -> transactionMetrics.countCommitsFor(List.of(request),
+                        () -> facade.createUsersWithBooks(List.of(request(), request()))))
+                .get(5, TimeUnit.SECONDS);
+        transactionMetrics.endRequest();
+
+        //Then
+        assertEquals(1, commits("false"));
+        assertCommitsPerRequest(1);
+    }
+
+    private UserDataFacade createFacade(BookService books) {
+        StorageTransactionManager transactionManager = new StorageTransactionManager(transactionMetrics);
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        return new UserDataFacade(userService, books, Mappers.getMapper(UserMapper.class),
+                Mappers.getMapper(BookMapper.class),
+                new StripedUserLock(64, meterRegistry),
+                new UserBookCache(100, Duration.ofMinutes(5), Duration.ofSeconds(5), meterRegistry),
+                new UserViewCounter(userService, meterRegistry),
+                writeTransaction, readTransaction, meterRegistry);
+    }
+
+    private double commits(String readOnly) {
+        return meterRegistry.get("transaction.commits").tag("read.only", readOnly).counter().count();
+    }
+
+    private void assertCommitsPerRequest(double commits) {
+        assertEquals(1, meterRegistry.get("request.transaction.commits").summary().count());
+        assertEquals(commits, meterRegistry.get("request.transaction.commits").summary().totalAmount());
+    }
+
+    private static UserBookRequest request() {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setFullName("Test Test");
+        userRequest.setTitle("reader");
+        userRequest.setAge(30);
+
+        List<BookRequest> bookRequests = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            BookRequest bookRequest = new BookRequest();
+            bookRequest.setTitle("Book " + i);
+            bookRequest.setAuthor("Author");
+            bookRequest.setPageCount(100 + i);
+            bookRequests.add(bookRequest);
+        }
+
+        UserBookRequest request = new UserBookRequest();
+        request.setUserRequest(userRequest);
+        request.setBookRequests(bookRequests);
+        return request;
+    }
+}
@@ -0,0 +1,40 @@
+package com.edu.ulab.app.web;
+
+import com.edu.ulab.app.exception.BadRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тестирование функционала {@link PageCursor}.
+ */
+@DisplayName("Testing page cursor.")
+public class PageCursorTest {
+
+    @Test
+    @DisplayName("Закодированный курсор читается обратно. Должно пройти успешно.")
+    void encode_thenDecode_Test() {
+        PageCursor cursor = new PageCursor(1001L, 109_990L);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode(), 1001L));
+    }
+
+    @Test
+    @DisplayName("Без курсора читается первая страница. Должно пройти успешно.")
+    void decode_missing_startsFromFirstPage_Test() {
+        assertEquals(new PageCursor(1001L, 0), PageCursor.decode(null, 1001L));
+        assertEquals(new PageCursor(1001L, 0), PageCursor.decode("", 1001L));
+    }
+
+    @Test
+    @DisplayName("Испорченный курсор или курсор другой выборки. Должно выбросить BadRequestException.")
+    void decode_invalid_Test() {
+        String cursor = new PageCursor(1001L, 5L).encode();
+
+        assertThrows(BadRequestException.class, () -> PageCursor.decode("not a cursor!", 1001L));
+        assertThrows(BadRequestException.class, () -> PageCursor.decode(cursor.substring(1), 1001L));
+        assertThrows(BadRequestException.class, () -> PageCursor.decode(cursor, 1002L));
+    }
+}
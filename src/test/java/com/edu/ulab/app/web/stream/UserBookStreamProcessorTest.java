@@ -0,0 +1,147 @@
+package com.edu.ulab.app.web.stream;
+
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестирование функционала {@link UserBookStreamProcessor}.
+ */
+@DisplayName("Testing streaming bulk create.")
+public class UserBookStreamProcessorTest {
+    private static final String USER = "{\"userRequest\":{\"fullName\":\"user\",\"title\":\"title\",\"age\":30},"
+            + "\"bookRequests\":[{\"title\":\"book\",\"author\":\"author\",\"pageCount\":100}]}";
+
+    ObjectMapper objectMapper;
+    UserDataFacade userDataFacade;
+    UserBookStreamProcessor processor;
+    AtomicLong ids;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        userDataFacade = mock(UserDataFacade.class);
+        processor = new UserBookStreamProcessor(objectMapper, userDataFacade, 2);
+        ids = new AtomicLong();
+        when(userDataFacade.createUsersWithBooks(anyList())).thenAnswer(this::created);
+    }
+
+    @Test
+    @DisplayName("JSON-массив сохраняется пачками, ответ - JSON-массив. Должно пройти успешно.")
+    void process_jsonArray_Test() throws IOException {
+        //Given
+        String body = "[" + String.join(",", USER, USER, USER) + "]";
+
+        //When
+        String output = process(body, false);
+
+        //Then
+        assertEquals("[{\"userId\":1,\"booksIdList\":[101]},{\"userId\":2,\"booksIdList\":[102]},"
+                + "{\"userId\":3,\"booksIdList\":[103]}]", output);
+        verify(userDataFacade, times(2)).createUsersWithBooks(anyList());
+    }
+
+    @Test
+    @DisplayName("NDJSON сохраняется пачками, ответ - NDJSON. Должно пройти успешно.")
+    void process_ndjson_Test() throws IOException {
+        //Given
+        String body = String.join("\n", USER, USER, USER, USER) + "\n";
+
+        //When
+        String output = process(body, true);
+
+        //Then
+        assertEquals("{\"userId\":1,\"booksIdList\":[101]}\n{\"userId\":2,\"booksIdList\":[102]}\n"
+                + "{\"userId\":3,\"booksIdList\":[103]}\n{\"userId\":4,\"booksIdList\":[104]}\n", output);
+        verify(userDataFacade, times(2)).createUsersWithBooks(anyList());
+    }
+
+    @Test
+    @DisplayName("Пустой массив не создаёт пользователей. Должно пройти успешно.")
+    void process_emptyArray_Test() throws IOException {
+        assertEquals("[]", process("[]", false));
+        verify(userDataFacade, times(0)).createUsersWithBooks(anyList());
+    }
+
+    @Test
+    @DisplayName("Элемент массива не объект. Должна быть ошибка разбора.")
+    void process_invalidElement_Test() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Assertions.assertThrows(JsonParseException.class, () -> processor.process(
+                new ByteArrayInputStream(("[" + USER + ", 42]").getBytes(StandardCharsets.UTF_8)), output, false));
+        assertEquals(0, output.size());
+    }
+
+    @Test
+    @DisplayName("Ошибка второй пачки дописывает в ответ элемент с ошибкой и номером объекта. Должно пройти успешно.")
+    void process_secondBatchFails_Test() throws IOException {
+        //Given
+        when(userDataFacade.createUsersWithBooks(anyList()))
+                .thenAnswer(this::created)
+                .thenThrow(new IllegalStateException("write failed"));
+        String body = "[" + String.join(",", USER, USER, USER) + "]";
+
+        //When
+        String output = process(body, false);
+
+        //Then
+        assertEquals("[{\"userId\":1,\"booksIdList\":[101]},{\"userId\":2,\"booksIdList\":[102]},"
+                + "{\"error\":\"write failed\",\"index\":2}]", output);
+        verify(userDataFacade, times(2)).createUsersWithBooks(anyList());
+    }
+
+    @Test
+    @DisplayName("Ошибка разбора после сохранённой пачки дописывает в NDJSON элемент с ошибкой. Должно пройти успешно.")
+    void process_malformedAfterBatch_Test() throws IOException {
+        //Given
+        String body = String.join("\n", USER, USER, "42");
+
+        //When
+        String output = process(body, true);
+
+        //Then
+        String[] lines = output.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"userId\":2,\"booksIdList\":[102]}", lines[1]);
+        assertEquals(2, objectMapper.readTree(lines[2]).get("index").asInt());
+        assertTrue(objectMapper.readTree(lines[2]).get("error").asText().contains("Expected user book object"));
+    }
+
+    private List<UserBookResponse> created(InvocationOnMock invocation) {
+        List<UserBookRequest> batch = invocation.getArgument(0);
+        return batch.stream()
+                .map(request -> UserBookResponse.builder()
+                        .userId(ids.incrementAndGet())
+                        .booksIdList(List.of(100 + ids.get()))
+                        .build())
+                .toList();
+    }
+
+    private String process(String body, boolean ndjson) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        processor.process(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), output, ndjson);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
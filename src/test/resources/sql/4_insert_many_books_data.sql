@@ -0,0 +1,13 @@
+insert into ulab_edu.person (ID, FULL_NAME, TITLE, AGE, COUNT)
+select g, 'generated user ' || g, 'generated title ' || g, 30, 0
+from generate_series(5001, 5100) g;
+
+insert into ulab_edu.book (ID, PERSON_ID, TITLE, AUTHOR, PAGE_COUNT)
+select g, 1001, 'generated book ' || g, 'generated author', 100
+from generate_series(100000, 109999) g;
+
+insert into ulab_edu.book (ID, PERSON_ID, TITLE, AUTHOR, PAGE_COUNT)
+select g, 5001 + (g % 100), 'generated book ' || g, 'generated author', 100
+from generate_series(200000, 249999) g;
+
+analyze ulab_edu.book;